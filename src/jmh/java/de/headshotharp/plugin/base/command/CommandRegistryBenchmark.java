@@ -0,0 +1,128 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandRegistryBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int commands;
+
+    @Param({ "false", "true" })
+    boolean nested;
+
+    private CommandRegistry<TestPluginImpl> registry;
+    private CommandSender sender;
+    private String[] executeArgs;
+    private String[] completeArgs;
+
+    @Setup
+    public void setup() {
+        TestPluginImpl plugin = Mockito.mock(TestPluginImpl.class);
+        sender = Mockito.mock(CommandSender.class);
+        List<ExecutableCommand<TestPluginImpl>> subcommands = new ArrayList<>();
+        for (int i = 0; i < commands; i++) {
+            subcommands.add(new NoopCommand(plugin, "command" + i));
+        }
+        CommandRegistry<TestPluginImpl> group = new CommandRegistry<>("group", plugin, subcommands);
+        // the last command is the worst case for linear dispatch
+        String target = "command" + (commands - 1);
+        if (nested) {
+            registry = new CommandRegistry<>("root", plugin, List.<ExecutableCommand<TestPluginImpl>>of(group));
+            executeArgs = new String[] { "group", target, "arg" };
+            completeArgs = new String[] { "group", "command1" };
+        } else {
+            registry = group;
+            executeArgs = new String[] { target, "arg" };
+            completeArgs = new String[] { "command1" };
+        }
+    }
+
+    @Benchmark
+    public boolean execute() {
+        return registry.execute(sender, "root", executeArgs);
+    }
+
+    @Benchmark
+    public List<String> tabComplete() {
+        return registry.onTabComplete(sender, "root", completeArgs);
+    }
+
+    static class NoopCommand extends ExecutableCommand<TestPluginImpl> {
+
+        private final String name;
+
+        NoopCommand(TestPluginImpl plugin, String name) {
+            super(plugin);
+            this.name = name;
+        }
+
+        @Override
+        public boolean execute(CommandSender sender, String command, String... args) {
+            return true;
+        }
+
+        @Override
+        public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+            return List.of();
+        }
+
+        @Override
+        public boolean isForPlayerOnly() {
+            return false;
+        }
+
+        @Override
+        public String usage() {
+            return "/" + name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reflections.Reflections;
+
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.testplugin.TestDataSource;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandScanBenchmark {
+
+    private static final String PACKAGE = TestPluginImpl.class.getPackageName();
+
+    private TestPluginImpl plugin;
+    private TestDataSource dataSource;
+
+    @Setup
+    public void setup() {
+        plugin = Mockito.mock(TestPluginImpl.class);
+        dataSource = new TestDataSource();
+    }
+
+    @Benchmark
+    public CommandRegistry<TestPluginImpl> scanCommands()
+            throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        return new CommandRegistry<>("test", plugin, TestPluginImpl.class, true, dataSource);
+    }
+
+    @Benchmark
+    @SuppressWarnings("rawtypes")
+    public Set<Class<? extends ExecutableCommand>> findClassesIndexed() {
+        return CommandIndex.load(getClass().getClassLoader()).stream()
+                .filter(className -> CommandIndex.isInPackage(className, PACKAGE, true))
+                .map(this::loadCommandClass).collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    @SuppressWarnings("rawtypes")
+    public Set<Class<? extends ExecutableCommand>> findClassesReflections() {
+        return new Reflections(PACKAGE).getSubTypesOf(ExecutableCommand.class);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Class<? extends ExecutableCommand> loadCommandClass(String className) {
+        try {
+            return Class.forName(className, false, getClass().getClassLoader()).asSubclass(ExecutableCommand.class);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.inject;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.headshotharp.plugin.base.command.testplugin.TestCommandImpl;
+import de.headshotharp.plugin.base.command.testplugin.TestDataSource;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+
+/**
+ * Compares the reflective instantiation formerly done by the command scan with
+ * {@link ConstructorPlan} and {@link Injector}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectorBenchmark {
+
+    private TestPluginImpl plugin;
+    private TestDataSource dataSource;
+    private Map<Class<?>, Object> injectables;
+    private Injector injector;
+    private Object[] args;
+
+    @Setup
+    public void setup() {
+        plugin = Mockito.mock(TestPluginImpl.class);
+        dataSource = new TestDataSource();
+        injectables = new HashMap<>();
+        injectables.put(TestPluginImpl.class, plugin);
+        injectables.put(TestDataSource.class, dataSource);
+        injector = new Injector(plugin, dataSource);
+        args = new Object[] { plugin, dataSource };
+    }
+
+    /**
+     * Exact class lookup and {@link Constructor#newInstance(Object...)} like the
+     * former command scan
+     */
+    @Benchmark
+    public Object reflective() throws ReflectiveOperationException {
+        Constructor<?> constructor = TestCommandImpl.class.getDeclaredConstructors()[0];
+        Object[] params = new Object[constructor.getParameterCount()];
+        for (int i = 0; i < params.length; i++) {
+            Class<?> paramType = constructor.getParameterTypes()[i];
+            params[i] = paramType.cast(injectables.get(paramType));
+        }
+        return constructor.newInstance(params);
+    }
+
+    @Benchmark
+    public TestCommandImpl constructorPlan() throws IllegalAccessException, InvocationTargetException {
+        return ConstructorPlan.of(TestCommandImpl.class).newInstance(args);
+    }
+
+    @Benchmark
+    public TestCommandImpl cachedFactory() throws IllegalAccessException, InvocationTargetException {
+        return injector.create(TestCommandImpl.class);
+    }
+
+    /**
+     * A new injector per registry, resolving the arguments against the shared
+     * plan
+     */
+    @Benchmark
+    public TestCommandImpl newInjector() throws IllegalAccessException, InvocationTargetException {
+        return new Injector(plugin, dataSource).create(TestCommandImpl.class);
+    }
+}
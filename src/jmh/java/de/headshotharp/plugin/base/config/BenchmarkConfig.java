@@ -0,0 +1,114 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Config pojo of typical shape for benchmarks
+ */
+public class BenchmarkConfig {
+
+    private String name;
+    private int maxPlayers;
+    private List<Entry> entries;
+
+    public static BenchmarkConfig create(int entries) {
+        BenchmarkConfig config = new BenchmarkConfig();
+        config.setName("benchmark");
+        config.setMaxPlayers(20);
+        List<Entry> list = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            Entry entry = new Entry();
+            entry.setId("item-" + i);
+            entry.setPrice(i * 10);
+            entry.setWeight(i / 3.0);
+            entry.setTags(List.of("shop", "tier" + i % 5));
+            list.add(entry);
+        }
+        config.setEntries(list);
+        return config;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public void setMaxPlayers(int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static class Entry {
+
+        private String id;
+        private int price;
+        private double weight;
+        private List<String> tags;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+
+        public void setPrice(int price) {
+            this.price = price;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+    }
+}
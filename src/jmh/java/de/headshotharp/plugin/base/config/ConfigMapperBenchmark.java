@@ -0,0 +1,84 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+/**
+ * Compares a mapper per config service with the shared, pre-warmed and
+ * accelerated mapper of {@link ConfigMappers}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigMapperBenchmark {
+
+    private final ObjectMapper plainMapper = new YAMLMapper();
+    private byte[] content;
+
+    @Setup
+    public void setup() throws IOException {
+        content = plainMapper.writeValueAsBytes(BenchmarkConfig.create(100));
+        ConfigMappers.prewarm(BenchmarkConfig.class);
+    }
+
+    @Benchmark
+    public BenchmarkConfig newMapperPerService() throws IOException {
+        return new YAMLMapper().readValue(content, BenchmarkConfig.class);
+    }
+
+    @Benchmark
+    public BenchmarkConfig reusedPlainMapper() throws IOException {
+        return plainMapper.readValue(content, BenchmarkConfig.class);
+    }
+
+    @Benchmark
+    public BenchmarkConfig sharedMapper() throws IOException {
+        return ConfigMappers.yaml().readValue(content, BenchmarkConfig.class);
+    }
+
+    @Benchmark
+    public byte[] newMapperPerServiceWrite() throws IOException {
+        return new YAMLMapper().writeValueAsBytes(BenchmarkConfig.create(10));
+    }
+
+    @Benchmark
+    public byte[] sharedMapperWrite() throws IOException {
+        return ConfigMappers.yaml().writeValueAsBytes(BenchmarkConfig.create(10));
+    }
+}
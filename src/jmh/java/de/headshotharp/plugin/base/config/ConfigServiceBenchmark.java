@@ -0,0 +1,110 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigServiceBenchmark {
+
+    @Param({ "10", "10000" })
+    int entries;
+
+    private Path directory;
+    private ConfigService<BenchmarkConfig> service;
+    private ConfigService<BenchmarkConfig> snapshotService;
+    private BenchmarkConfig config;
+    private int saves;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("config-benchmark");
+        File file = directory.resolve("config.yml").toFile();
+        config = BenchmarkConfig.create(entries);
+        service = new ConfigService<>(BenchmarkConfig.class, file);
+        service.saveConfig(config);
+        snapshotService = new ConfigService<>(BenchmarkConfig.class, file);
+        snapshotService.setBinarySnapshot(true);
+        snapshotService.readConfig();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public BenchmarkConfig readConfig() throws IOException {
+        return service.readConfig();
+    }
+
+    @Benchmark
+    public BenchmarkConfig reload() throws IOException {
+        return service.reload();
+    }
+
+    @Benchmark
+    public BenchmarkConfig reloadBinarySnapshot() throws IOException {
+        return snapshotService.reload();
+    }
+
+    @Benchmark
+    public BenchmarkConfig getConfig() throws IOException {
+        return service.getConfig();
+    }
+
+    @Benchmark
+    public void saveConfig() throws IOException {
+        // change the content, unchanged saves are skipped
+        config.setMaxPlayers(saves++);
+        service.saveConfig(config);
+    }
+
+    @Benchmark
+    public void saveConfigUnchanged() throws IOException {
+        service.saveConfig(config);
+    }
+}
@@ -19,24 +19,139 @@
  */
 package de.headshotharp.plugin.base;
 
+import java.time.Duration;
+import java.util.function.Supplier;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 
 import org.bukkit.plugin.java.JavaPlugin;
 
+import de.headshotharp.plugin.base.logging.AsyncLogDispatcher;
+import de.headshotharp.plugin.base.logging.LogFormat;
+import de.headshotharp.plugin.base.logging.LogRateLimiter;
+import de.headshotharp.plugin.base.logging.OverflowPolicy;
+
 /**
  * Simple {@link org.bukkit.plugin.java.JavaPlugin JavaPlugin} extension to
- * provide easy logging methods.
+ * provide easy logging methods. Supplier and placeholder overloads only build
+ * the message if the level is enabled. After
+ * {@link #enableAsyncLogging(int, OverflowPolicy)} records are published on a
+ * background thread. {@link #enableLogRateLimit(Duration)} collapses log
+ * storms. Services of the plugin, see {@link PluginServices}, are closed in
+ * {@link #onDisable()}.
  *
  */
 public class LoggablePlugin extends JavaPlugin {
 
+    private static final long TICK_MILLIS = 50;
+
+    private volatile AsyncLogDispatcher asyncLogDispatcher;
+    private volatile LogRateLimiter logRateLimiter;
+
+    /**
+     * Close all services of this plugin. Subclasses overriding onDisable must call
+     * super.onDisable() at the end, after saving their state.
+     */
+    @Override
+    public void onDisable() {
+        PluginServices.closeAll(this);
+    }
+
+    /**
+     * Publish log records on a background thread until the plugin gets disabled
+     *
+     * @param capacity       maximum number of buffered records
+     * @param overflowPolicy behaviour if the buffer is full
+     */
+    public void enableAsyncLogging(int capacity, OverflowPolicy overflowPolicy) {
+        asyncLogDispatcher = PluginServices.get(this, AsyncLogDispatcher.class,
+                plugin -> new AsyncLogDispatcher(getLogger(), capacity, overflowPolicy));
+    }
+
+    /**
+     * Collapse repeated messages until the plugin gets disabled. Each message key
+     * is logged once per window with the number of suppressed repeats, stack traces
+     * are printed once per window and exception type. The key is the message, the
+     * format of placeholder overloads or the call site of supplier overloads.
+     *
+     * @param window the time window per message key
+     */
+    public void enableLogRateLimit(Duration window) {
+        logRateLimiter = PluginServices.get(this, LogRateLimiter.class, plugin -> {
+            LogRateLimiter limiter = new LogRateLimiter(window, (level, msg) -> publish(level, msg, null));
+            long period = Math.max(1, window.toMillis() / TICK_MILLIS);
+            getServer().getScheduler().runTaskTimerAsynchronously(this, limiter::flush, period, period);
+            return limiter;
+        });
+    }
+
+    /**
+     * Check if the given level is enabled
+     *
+     * @param level the level to check
+     * @return true if messages of the level are logged
+     */
+    public boolean isLoggable(Level level) {
+        return getLogger().isLoggable(level);
+    }
+
+    /**
+     * Log debug
+     *
+     * @param msg Text to log
+     */
+    public void debug(String msg) {
+        log(Level.FINE, msg, msg, null, null, null);
+    }
+
+    /**
+     * Log debug
+     *
+     * @param msg Text to log
+     * @param t   Exception to log
+     */
+    public void debug(String msg, Throwable t) {
+        log(Level.FINE, msg, msg, null, null, t);
+    }
+
+    /**
+     * Log debug, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     */
+    public void debug(Supplier<String> msg) {
+        log(Level.FINE, msg.getClass(), null, null, msg, null);
+    }
+
+    /**
+     * Log debug, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     * @param t   Exception to log
+     */
+    public void debug(Supplier<String> msg, Throwable t) {
+        log(Level.FINE, msg.getClass(), null, null, msg, t);
+    }
+
+    /**
+     * Log debug, each <code>{}</code> in the format is replaced by the next
+     * argument if the level is enabled. A trailing exception argument is logged as
+     * exception.
+     *
+     * @param format Text to log with placeholders
+     * @param args   Arguments of the placeholders
+     */
+    public void debug(String format, Object... args) {
+        log(Level.FINE, format, format, args, null, LogFormat.throwable(args));
+    }
+
     /**
      * Log info
      *
      * @param msg Text to log
      */
     public void info(String msg) {
-        getLogger().log(Level.INFO, msg);
+        log(Level.INFO, msg, msg, null, null, null);
     }
 
     /**
@@ -46,7 +161,38 @@ public class LoggablePlugin extends JavaPlugin {
      * @param t   Exception to log
      */
     public void info(String msg, Throwable t) {
-        getLogger().log(Level.INFO, msg, t);
+        log(Level.INFO, msg, msg, null, null, t);
+    }
+
+    /**
+     * Log info, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     */
+    public void info(Supplier<String> msg) {
+        log(Level.INFO, msg.getClass(), null, null, msg, null);
+    }
+
+    /**
+     * Log info, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     * @param t   Exception to log
+     */
+    public void info(Supplier<String> msg, Throwable t) {
+        log(Level.INFO, msg.getClass(), null, null, msg, t);
+    }
+
+    /**
+     * Log info, each <code>{}</code> in the format is replaced by the next
+     * argument if the level is enabled. A trailing exception argument is logged as
+     * exception.
+     *
+     * @param format Text to log with placeholders
+     * @param args   Arguments of the placeholders
+     */
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, format, args, null, LogFormat.throwable(args));
     }
 
     /**
@@ -55,7 +201,7 @@ public class LoggablePlugin extends JavaPlugin {
      * @param msg Text to log
      */
     public void warn(String msg) {
-        getLogger().log(Level.WARNING, msg);
+        log(Level.WARNING, msg, msg, null, null, null);
     }
 
     /**
@@ -65,7 +211,38 @@ public class LoggablePlugin extends JavaPlugin {
      * @param t   Exception to log
      */
     public void warn(String msg, Throwable t) {
-        getLogger().log(Level.WARNING, msg, t);
+        log(Level.WARNING, msg, msg, null, null, t);
+    }
+
+    /**
+     * Log warning, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     */
+    public void warn(Supplier<String> msg) {
+        log(Level.WARNING, msg.getClass(), null, null, msg, null);
+    }
+
+    /**
+     * Log warning, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     * @param t   Exception to log
+     */
+    public void warn(Supplier<String> msg, Throwable t) {
+        log(Level.WARNING, msg.getClass(), null, null, msg, t);
+    }
+
+    /**
+     * Log warning, each <code>{}</code> in the format is replaced by the next
+     * argument if the level is enabled. A trailing exception argument is logged as
+     * exception.
+     *
+     * @param format Text to log with placeholders
+     * @param args   Arguments of the placeholders
+     */
+    public void warn(String format, Object... args) {
+        log(Level.WARNING, format, format, args, null, LogFormat.throwable(args));
     }
 
     /**
@@ -74,7 +251,7 @@ public class LoggablePlugin extends JavaPlugin {
      * @param msg Text to log
      */
     public void error(String msg) {
-        getLogger().log(Level.SEVERE, msg);
+        log(Level.SEVERE, msg, msg, null, null, null);
     }
 
     /**
@@ -84,6 +261,80 @@ public class LoggablePlugin extends JavaPlugin {
      * @param t   Exception to log
      */
     public void error(String msg, Throwable t) {
-        getLogger().log(Level.SEVERE, msg, t);
+        log(Level.SEVERE, msg, msg, null, null, t);
+    }
+
+    /**
+     * Log error, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     */
+    public void error(Supplier<String> msg) {
+        log(Level.SEVERE, msg.getClass(), null, null, msg, null);
+    }
+
+    /**
+     * Log error, the message is only created if the level is enabled
+     *
+     * @param msg Supplier of the text to log
+     * @param t   Exception to log
+     */
+    public void error(Supplier<String> msg, Throwable t) {
+        log(Level.SEVERE, msg.getClass(), null, null, msg, t);
+    }
+
+    /**
+     * Log error, each <code>{}</code> in the format is replaced by the next
+     * argument if the level is enabled. A trailing exception argument is logged as
+     * exception.
+     *
+     * @param format Text to log with placeholders
+     * @param args   Arguments of the placeholders
+     */
+    public void error(String format, Object... args) {
+        log(Level.SEVERE, format, format, args, null, LogFormat.throwable(args));
+    }
+
+    private void log(Level level, Object key, String msg, Object[] args, Supplier<String> supplier, Throwable t) {
+        if (!isLoggable(level)) {
+            return;
+        }
+        LogRateLimiter limiter = logRateLimiter;
+        long repeats = 0;
+        Throwable thrown = t;
+        if (limiter != null) {
+            repeats = limiter.acquire(key);
+            if (repeats == LogRateLimiter.SUPPRESSED) {
+                return;
+            }
+            if (thrown != null && !limiter.acquireTrace(thrown)) {
+                thrown = null;
+            }
+        }
+        String message = supplier != null ? supplier.get() : LogFormat.format(msg, args);
+        if (limiter != null) {
+            limiter.logged(key, level, message);
+            if (repeats > 0) {
+                message += " (repeated " + repeats + " more times)";
+            }
+            if (t != null && thrown == null) {
+                message += " [" + t + ", stack trace suppressed]";
+            }
+        }
+        publish(level, message, thrown);
+    }
+
+    private void publish(Level level, String msg, Throwable t) {
+        AsyncLogDispatcher dispatcher = asyncLogDispatcher;
+        if (dispatcher == null) {
+            getLogger().log(level, msg, t);
+            return;
+        }
+        LogRecord logRecord = new LogRecord(level, msg);
+        logRecord.setThrown(t);
+        logRecord.setLoggerName(getLogger().getName());
+        // the caller cannot be inferred on the dispatcher thread
+        logRecord.setSourceClassName(null);
+        dispatcher.dispatch(logRecord);
     }
 }
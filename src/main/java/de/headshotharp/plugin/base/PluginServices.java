@@ -0,0 +1,181 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.ServiceUnregisterEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.ServicePriority;
+
+/**
+ * Registry of per plugin services like executors or caches. Services are
+ * created on first access and closed in reverse creation order by
+ * {@link #closeAll(Plugin)}, if they implement {@link AutoCloseable}.<br />
+ * Services of an enabled plugin are closed automatically after its onDisable:
+ * a marker registered with the Bukkit services manager is unregistered by the
+ * server after onDisable returns, which triggers {@link #closeAll(Plugin)}. The
+ * PluginDisableEvent is not used as it fires before onDisable, when the plugin
+ * may still need its services to save its state. Services created before the
+ * plugin is enabled are only covered once a service is accessed while it is
+ * enabled; such plugins should call {@link #closeAll(Plugin)} at the end of
+ * onDisable, as {@link LoggablePlugin} does by default.
+ */
+public final class PluginServices {
+
+    private static final Map<Plugin, Map<Class<?>, Object>> SERVICES = new ConcurrentHashMap<>();
+
+    private PluginServices() {
+    }
+
+    /**
+     * Get the service of the given type for the given plugin, creating it if
+     * necessary
+     *
+     * @param <S>     type of the service
+     * @param plugin  the owning plugin
+     * @param type    type of the service
+     * @param factory creates the service if it does not exist yet
+     * @return the service
+     */
+    public static <S> S get(Plugin plugin, Class<S> type, Function<Plugin, ? extends S> factory) {
+        Map<Class<?>, Object> services = servicesOf(plugin);
+        Object service = services.get(type);
+        if (service == null) {
+            // create outside of computeIfAbsent as factories may request other services
+            S created = factory.apply(plugin);
+            service = services.putIfAbsent(type, created);
+            if (service == null) {
+                service = created;
+            } else {
+                close(plugin, created);
+            }
+        }
+        return type.cast(service);
+    }
+
+    /**
+     * Register a service with custom settings. Must be called before the service
+     * is first accessed.
+     *
+     * @param <S>     type of the service
+     * @param plugin  the owning plugin
+     * @param type    type of the service
+     * @param service the service
+     * @return the given service
+     * @throws IllegalStateException if the service already exists
+     */
+    public static <S> S register(Plugin plugin, Class<S> type, S service) {
+        if (servicesOf(plugin).putIfAbsent(type, service) != null) {
+            close(plugin, service);
+            throw new IllegalStateException(
+                    "The service " + type.getSimpleName() + " already exists for plugin " + plugin.getName());
+        }
+        return service;
+    }
+
+    /**
+     * Close and remove all services of the given plugin. Called automatically after
+     * onDisable of enabled plugins, calling it again has no effect.
+     *
+     * @param plugin the owning plugin
+     */
+    public static void closeAll(Plugin plugin) {
+        Map<Class<?>, Object> services = SERVICES.remove(plugin);
+        if (services != null) {
+            List<Object> ordered = new ArrayList<>(services.values());
+            Collections.reverse(ordered);
+            ordered.forEach(service -> close(plugin, service));
+        }
+    }
+
+    private static Map<Class<?>, Object> servicesOf(Plugin plugin) {
+        Map<Class<?>, Object> services = SERVICES.computeIfAbsent(plugin,
+                p -> Collections.synchronizedMap(new LinkedHashMap<>()));
+        // listeners can only be registered while the plugin is enabled
+        if (plugin.isEnabled() && !services.containsKey(DisableHook.class)) {
+            DisableHook hook = new DisableHook(plugin);
+            if (services.putIfAbsent(DisableHook.class, hook) == null) {
+                hook.bind();
+            }
+        }
+        return services;
+    }
+
+    private static void close(Plugin plugin, Object service) {
+        if (service instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Could not close " + service.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Closes the services of a plugin when the server unregisters its Bukkit
+     * services, which happens right after onDisable
+     */
+    static final class DisableHook implements Listener, AutoCloseable {
+
+        private final Plugin plugin;
+
+        DisableHook(Plugin plugin) {
+            this.plugin = plugin;
+        }
+
+        void bind() {
+            plugin.getServer().getPluginManager().registerEvents(this, plugin);
+            plugin.getServer().getServicesManager().register(DisableHook.class, this, plugin, ServicePriority.Lowest);
+        }
+
+        /**
+         * Close all services of the plugin once its marker is unregistered
+         *
+         * @param event the unregister event
+         */
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onServiceUnregister(ServiceUnregisterEvent event) {
+            if (event.getProvider().getProvider() == this) {
+                closeAll(plugin);
+            }
+        }
+
+        /**
+         * Unregister the marker and listener if the services are closed explicitly
+         */
+        @Override
+        public void close() {
+            HandlerList.unregisterAll(this);
+            plugin.getServer().getServicesManager().unregister(DisableHook.class, this);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reader for the command index generated at compile time by
+ * {@link de.headshotharp.plugin.base.command.processor.CommandIndexProcessor
+ * CommandIndexProcessor}. The index lists the binary names of all concrete
+ * {@link de.headshotharp.plugin.base.command.generic.ExecutableCommand
+ * ExecutableCommand} implementations of a plugin jar, one per line.
+ */
+public final class CommandIndex {
+
+    /**
+     * Location of the generated index inside the plugin jar
+     */
+    public static final String INDEX_RESOURCE = "META-INF/plugin-base/commands.index";
+
+    private CommandIndex() {
+    }
+
+    /**
+     * Read all command indexes visible to the given class loader
+     *
+     * @param classLoader the class loader of the plugin
+     * @return binary names of all indexed commands or null if no index exists
+     */
+    static Set<String> load(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX_RESOURCE);
+            if (!resources.hasMoreElements()) {
+                return null;
+            }
+            Set<String> classNames = new TreeSet<>();
+            while (resources.hasMoreElements()) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    reader.lines().map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                            .forEach(classNames::add);
+                }
+            }
+            return classNames;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read command index " + INDEX_RESOURCE, e);
+        }
+    }
+
+    /**
+     * Check whether the given class name is inside the given package
+     *
+     * @param className   binary name of the class
+     * @param packageName name of the package
+     * @param recursive   include subpackages
+     * @return true if the class is inside the package
+     */
+    static boolean isInPackage(String className, String packageName, boolean recursive) {
+        int lastDot = className.lastIndexOf('.');
+        String classPackage = lastDot < 0 ? "" : className.substring(0, lastDot);
+        return classPackage.equals(packageName) || (recursive && classPackage.startsWith(packageName + "."));
+    }
+}
@@ -19,15 +19,18 @@
  */
 package de.headshotharp.plugin.base.command;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.bukkit.ChatColor;
@@ -36,7 +39,19 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.reflections.Reflections;
 
+import de.headshotharp.plugin.base.command.async.AsyncCommandExecutor;
+import de.headshotharp.plugin.base.command.async.AsyncTabCompleter;
+import de.headshotharp.plugin.base.command.completion.PlayerNameIndex;
+import de.headshotharp.plugin.base.command.generic.Arguments;
 import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.generic.ExecutionPolicy;
+import de.headshotharp.plugin.base.command.inject.Injector;
+import de.headshotharp.plugin.base.command.metrics.CommandMetrics;
+import de.headshotharp.plugin.base.command.permission.PermissionCache;
+import de.headshotharp.plugin.base.command.ratelimit.RateLimit;
+import de.headshotharp.plugin.base.command.ratelimit.RateLimiter;
+import de.headshotharp.plugin.base.profiling.StartupProfiler;
+import de.headshotharp.plugin.base.profiling.StartupProfiler.Phase;
 
 /**
  * Base class to register bukkit commands on
@@ -47,7 +62,16 @@ import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
 public class CommandRegistry<T extends JavaPlugin> extends ExecutableCommand<T> {
 
     private String name;
-    private List<ExecutableCommand<T>> subcommands = new LinkedList<>();
+    private final List<ExecutableCommand<T>> subcommands;
+    private volatile DispatchIndex<T> dispatchIndex;
+    private volatile CompletionIndex completionIndex;
+    private volatile CommandMetrics metrics = CommandMetrics.NONE;
+    private volatile FlatDispatchTable<T> flatDispatchTable;
+    private final List<CommandRegistry<T>> parents = new CopyOnWriteArrayList<>();
+    private final Map<ExecutableCommand<T>, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    // subclasses written against the String[] overloads keep being called
+    private final boolean legacyExecute = overridesLegacy(getClass(), "execute");
+    private final boolean legacyTabComplete = overridesLegacy(getClass(), "onTabComplete");
 
     /**
      * Creates a command registry and scans classpath for bukkit commands
@@ -120,7 +144,59 @@ public class CommandRegistry<T extends JavaPlugin> extends ExecutableCommand<T>
     public CommandRegistry(String name, T plugin, Class<T> pluginClass, String basePackageName, boolean recursive,
             Object... injectableInstances)
             throws InstantiationException, IllegalAccessException, InvocationTargetException {
-        this(name, plugin, scanCommands(basePackageName, recursive, plugin, pluginClass, injectableInstances));
+        this(name, plugin, pluginClass, basePackageName, recursive,
+                createInjector(plugin, pluginClass, injectableInstances));
+    }
+
+    /**
+     * Creates a command registry and scans classpath for bukkit commands
+     * implementing
+     * {@link de.headshotharp.plugin.base.command.generic.ExecutableCommand
+     * ExecutableCommand}. Constructor parameters of those commands are resolved by
+     * the given injector, which may be shared with nested registries to reuse its
+     * bindings and resolved factories. The plugin is bound to the plugin class if
+     * the injector does not provide it yet.
+     *
+     * @param name            name of this command
+     * @param plugin          base plugin implementation
+     * @param pluginClass     class of the plugin implementation
+     * @param basePackageName the package to scan for commands
+     * @param recursive       scan subpackages
+     * @param injector        injector providing constructor parameters
+     * @throws InstantiationException    thrown if the command cannot be intatiated
+     * @throws IllegalAccessException    thrown if the constructor is not accessible
+     * @throws InvocationTargetException thrown if the constructor cannot be invoked
+     */
+    public CommandRegistry(String name, T plugin, Class<T> pluginClass, String basePackageName, boolean recursive,
+            Injector injector) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        this(name, plugin, pluginClass, basePackageName, recursive, injector, false);
+    }
+
+    /**
+     * Creates a command registry and scans classpath for bukkit commands
+     * implementing
+     * {@link de.headshotharp.plugin.base.command.generic.ExecutableCommand
+     * ExecutableCommand}. In lazy mode commands annotated with
+     * {@link de.headshotharp.plugin.base.command.generic.CommandInfo CommandInfo}
+     * are registered as {@link LazyCommand} and only instantiated when they are
+     * first dispatched or completed, all other commands are instantiated
+     * immediately.
+     *
+     * @param name            name of this command
+     * @param plugin          base plugin implementation
+     * @param pluginClass     class of the plugin implementation
+     * @param basePackageName the package to scan for commands
+     * @param recursive       scan subpackages
+     * @param injector        injector providing constructor parameters
+     * @param lazy            defer instantiation of annotated commands
+     * @throws InstantiationException    thrown if the command cannot be intatiated
+     * @throws IllegalAccessException    thrown if the constructor is not accessible
+     * @throws InvocationTargetException thrown if the constructor cannot be invoked
+     */
+    public CommandRegistry(String name, T plugin, Class<T> pluginClass, String basePackageName, boolean recursive,
+            Injector injector, boolean lazy)
+            throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        this(name, plugin, scanCommands(basePackageName, recursive, plugin, pluginClass, injector, lazy));
     }
 
     /**
@@ -133,7 +209,7 @@ public class CommandRegistry<T extends JavaPlugin> extends ExecutableCommand<T>
      */
     @SafeVarargs
     public CommandRegistry(String name, T plugin, ExecutableCommand<T>... subcommands) {
-        this(name, plugin, new LinkedList<>(Arrays.asList(subcommands)));
+        this(name, plugin, Arrays.asList(subcommands));
     }
 
     /**
@@ -147,66 +223,297 @@ public class CommandRegistry<T extends JavaPlugin> extends ExecutableCommand<T>
     public CommandRegistry(String name, T plugin, List<ExecutableCommand<T>> subcommands) {
         super(plugin);
         this.name = name;
-        this.subcommands = subcommands;
+        this.subcommands = new CopyOnWriteArrayList<>(subcommands);
+        this.dispatchIndex = new DispatchIndex<>(this.subcommands);
+        this.completionIndex = new CompletionIndex(this.subcommands, Integer.MAX_VALUE);
+        for (ExecutableCommand<T> command : this.subcommands) {
+            if (command instanceof CommandRegistry<T> registry) {
+                registry.parents.add(this);
+            }
+        }
     }
 
     /**
-     * Get all registered commands
+     * Get all registered commands. Use {@link #addCommand(ExecutableCommand)} to
+     * register further commands.
      *
-     * @return List of registered commands
+     * @return unmodifiable list of registered commands
      */
     public List<ExecutableCommand<T>> getCommands() {
-        return subcommands;
+        return Collections.unmodifiableList(subcommands);
     }
 
     /**
-     * Register given command in this registry
+     * Register given command in this registry and rebuild the dispatch and
+     * completion indexes. Compiled dispatch tables of this registry and all
+     * registries containing it are recompiled.
      *
      * @param command The command to add to registry
      */
-    public void addCommand(ExecutableCommand<T> command) {
+    public synchronized void addCommand(ExecutableCommand<T> command) {
+        if (command instanceof CommandRegistry<T> registry) {
+            if (metrics != CommandMetrics.NONE) {
+                registry.setMetrics(metrics);
+            }
+            registry.parents.add(this);
+        }
         this.subcommands.add(command);
+        this.dispatchIndex = new DispatchIndex<>(subcommands);
+        this.completionIndex = new CompletionIndex(subcommands, completionIndex.getLimit());
+        recompile();
+    }
+
+    /**
+     * Compile this registry and all nested registries into one table resolving a
+     * whole path of subcommand names with a single lookup per level instead of
+     * dispatching level by level. The table is recompiled whenever a command is
+     * added to any registry of the tree. Called by {@link #registerCommands()}.
+     * <br />
+     * Nested registries that override execute, require a permission, are player
+     * only, rate limited or asynchronous are still dispatched by their registry,
+     * just like levels with commands overriding isApplicable. While metrics are
+     * recorded all levels are dispatched by their registry, so nested registries
+     * are timed as well.
+     */
+    public synchronized void compileDispatchTable() {
+        this.flatDispatchTable = FlatDispatchTable.compile(this);
+    }
+
+    FlatDispatchTable<T> getDispatchTable() {
+        return flatDispatchTable;
+    }
+
+    private synchronized void recompile() {
+        if (flatDispatchTable != null) {
+            compileDispatchTable();
+        }
+        for (CommandRegistry<T> parent : parents) {
+            parent.recompile();
+        }
+    }
+
+    /**
+     * Record execution and tab completion latencies of all subcommands in the
+     * given metrics. Nested registries use the same metrics.
+     *
+     * @param metrics the metrics, {@link CommandMetrics#NONE} to disable
+     */
+    public void setMetrics(CommandMetrics metrics) {
+        this.metrics = metrics;
+        for (ExecutableCommand<T> command : subcommands) {
+            if (command instanceof CommandRegistry<T> registry) {
+                registry.setMetrics(metrics);
+            }
+        }
+    }
+
+    /**
+     * Get the metrics recording subcommand latencies
+     *
+     * @return the metrics, {@link CommandMetrics#NONE} by default
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Limit the number of subcommand names suggested on tab completion. Unlimited
+     * by default.
+     *
+     * @param limit maximum number of suggested subcommand names
+     */
+    public synchronized void setTabCompletionLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The tab completion limit must be positive");
+        }
+        this.completionIndex = new CompletionIndex(subcommands, limit);
+    }
+
+    /**
+     * Register this registry as executor and tab completer in this plugin and
+     * compile its dispatch table, see {@link #compileDispatchTable()}. On Paper
+     * servers subcommands are additionally completed asynchronously, see
+     * {@link AsyncTabCompleter}. Creates the {@link PlayerNameIndex} of the plugin,
+     * which must not be created lazily on an async tab completion thread.
+     */
+    @Override
+    public void registerCommands() {
+        compileDispatchTable();
+        PlayerNameIndex.of(getPlugin());
+        super.registerCommands();
+        AsyncTabCompleter.register(this, getPlugin().getCommand(getName()));
+    }
+
+    /**
+     * Find the subcommand applicable to the given subcommand name and arguments
+     *
+     * @param sender  the command sender
+     * @param command the subcommand name
+     * @param args    the arguments to the subcommand
+     * @return the applicable subcommand or null if no subcommand applies
+     */
+    public ExecutableCommand<T> findCommand(CommandSender sender, String command, Arguments args) {
+        return dispatchIndex.find(sender, command, args);
     }
 
     @Override
     public boolean execute(CommandSender sender, String bukkitCommand, String... originalArgs) {
+        return dispatch(sender, bukkitCommand, Arguments.of(originalArgs));
+    }
+
+    /**
+     * Dispatch to the applicable subcommand. Delegates to
+     * {@link #execute(CommandSender, String, String...)} if a subclass overrides
+     * it.
+     */
+    @Override
+    public boolean execute(CommandSender sender, String bukkitCommand, Arguments originalArgs) {
+        return legacyExecute ? execute(sender, bukkitCommand, originalArgs.toArray())
+                : dispatch(sender, bukkitCommand, originalArgs);
+    }
+
+    private boolean dispatch(CommandSender sender, String bukkitCommand, Arguments originalArgs) {
+        FlatDispatchTable<T> table = flatDispatchTable;
+        if (table != null && metrics == CommandMetrics.NONE && table.dispatch(sender, originalArgs)) {
+            return true;
+        }
         boolean showUsage = true;
-        if (originalArgs.length > 0) {
-            String cmd = originalArgs[0];
-            String[] args = moveArgs(originalArgs);
-            for (ExecutableCommand<T> command : subcommands) {
-                if (command.isApplicable(sender, cmd, args)) {
-                    showUsage = false;
-                    if (command.isForPlayerOnly() && !(sender instanceof Player)) {
-                        sender.sendMessage("The command is for players only");
-                    } else if (!command.execute(sender, cmd, args)) {
-                        sender.sendMessage(ChatColor.DARK_RED + command.usage());
-                    }
-                    break;
-                }
+        if (!originalArgs.isEmpty()) {
+            String cmd = originalArgs.get(0);
+            Arguments args = originalArgs.shift();
+            ExecutableCommand<T> command = dispatchIndex.find(sender, cmd, args);
+            if (command != null) {
+                showUsage = false;
+                invoke(sender, command, cmd, args);
             }
         }
         if (showUsage) {
-            sender.sendMessage(ChatColor.YELLOW + usage());
+            sendUsage(sender);
         }
         return true;
     }
 
+    void sendUsage(CommandSender sender) {
+        sender.sendMessage(ChatColor.YELLOW + usage());
+    }
+
+    void invoke(CommandSender sender, ExecutableCommand<T> command, String cmd, Arguments args) {
+        if (!hasPermission(sender, command)) {
+            sender.sendMessage(ChatColor.RED + "You do not have permission to use this command");
+            return;
+        }
+        if (command.isForPlayerOnly() && !(sender instanceof Player)) {
+            sender.sendMessage("The command is for players only");
+            return;
+        }
+        if (isRateLimited(sender, command)) {
+            return;
+        }
+        if (command.getExecutionPolicy() == ExecutionPolicy.ASYNC) {
+            AsyncCommandExecutor.of(getPlugin()).execute(sender, command, cmd, args, metrics);
+        } else if (metrics == CommandMetrics.NONE) {
+            if (!command.execute(sender, cmd, args)) {
+                sender.sendMessage(ChatColor.DARK_RED + command.usage());
+            }
+        } else {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                success = command.execute(sender, cmd, args);
+            } finally {
+                metrics.recordExecution(command, System.nanoTime() - start, success);
+            }
+            if (!success) {
+                sender.sendMessage(ChatColor.DARK_RED + command.usage());
+            }
+        }
+    }
+
+    /**
+     * Check whether the sender has the permission required by the given command,
+     * see {@link ExecutableCommand#getPermission()}. Results for players are
+     * cached in the {@link PermissionCache} of the plugin. Also called off the
+     * server thread by async tab completion.
+     *
+     * @param sender  the command sender
+     * @param command the command to check
+     * @return true if the command requires no permission or the sender has it
+     */
+    public boolean hasPermission(CommandSender sender, ExecutableCommand<?> command) {
+        String permission = command.getPermission();
+        return permission == null || permission.isEmpty()
+                || PermissionCache.of(getPlugin()).hasPermission(sender, permission);
+    }
+
+    private boolean isRateLimited(CommandSender sender, ExecutableCommand<T> command) {
+        RateLimit rateLimit = command.getRateLimit();
+        if (rateLimit == RateLimit.NONE) {
+            return false;
+        }
+        RateLimiter limiter = rateLimiters.get(command);
+        if (limiter == null) {
+            limiter = rateLimiters.computeIfAbsent(command, c -> new RateLimiter(rateLimit));
+        }
+        long waitNanos = limiter.tryAcquire(sender);
+        if (waitNanos > 0) {
+            long seconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999);
+            sender.sendMessage(ChatColor.RED + "Please wait " + seconds + "s before using this command again");
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public List<String> onTabComplete(CommandSender sender, String bukkitCommand, String... originalArgs) {
-        if (originalArgs.length == 1) {
-            return subcommands.stream().map(cmd -> cmd.getName().toLowerCase())
-                    .filter(cmd -> cmd.startsWith(originalArgs[0].toLowerCase())).toList();
+        return complete(sender, bukkitCommand, Arguments.of(originalArgs));
+    }
+
+    /**
+     * Complete the subcommand names or delegate to the applicable subcommand.
+     * Delegates to {@link #onTabComplete(CommandSender, String, String...)} if a
+     * subclass overrides it.
+     */
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String bukkitCommand, Arguments originalArgs) {
+        return legacyTabComplete ? onTabComplete(sender, bukkitCommand, originalArgs.toArray())
+                : complete(sender, bukkitCommand, originalArgs);
+    }
+
+    /**
+     * Check whether tab completion is done by this class or by a subclass
+     * overriding {@link #onTabComplete(CommandSender, String, String...)}
+     *
+     * @return true if subcommands are completed by this registry
+     */
+    public boolean usesDefaultTabCompletion() {
+        return !legacyTabComplete;
+    }
+
+    private List<String> complete(CommandSender sender, String bukkitCommand, Arguments originalArgs) {
+        if (originalArgs.size() == 1) {
+            CompletionIndex index = completionIndex;
+            if (index.hasPermissions()) {
+                PermissionCache permissions = PermissionCache.of(getPlugin());
+                return index.complete(originalArgs.get(0), permission -> permissions.hasPermission(sender, permission));
+            }
+            return index.complete(originalArgs.get(0));
         } else {
-            String cmd = originalArgs[0];
-            String[] args = moveArgs(originalArgs);
-            for (ExecutableCommand<T> command : subcommands) {
-                if (command.isApplicable(sender, cmd, args)) {
+            String cmd = originalArgs.get(0);
+            Arguments args = originalArgs.shift();
+            ExecutableCommand<T> command = dispatchIndex.find(sender, cmd, args);
+            if (command != null && hasPermission(sender, command)) {
+                if (metrics == CommandMetrics.NONE) {
+                    return command.onTabComplete(sender, cmd, args);
+                }
+                long start = System.nanoTime();
+                try {
                     return command.onTabComplete(sender, cmd, args);
+                } finally {
+                    metrics.recordCompletion(command, System.nanoTime() - start);
                 }
             }
         }
-        return new LinkedList<>();
+        return List.of();
     }
 
     @Override
@@ -214,6 +521,11 @@ public class CommandRegistry<T extends JavaPlugin> extends ExecutableCommand<T>
         return false;
     }
 
+    @Override
+    public boolean isTabCompletionAsyncSafe() {
+        return true;
+    }
+
     @Override
     public String usage() {
         return "Available subcommands: "
@@ -227,64 +539,92 @@ public class CommandRegistry<T extends JavaPlugin> extends ExecutableCommand<T>
 
     /* utilities */
 
-    private String[] moveArgs(String[] args) {
-        if (args.length <= 1) {
-            return new String[0];
+    private static <T extends JavaPlugin> Injector createInjector(T plugin, Class<T> pluginClass,
+            Object[] injectableInstances) {
+        Injector injector = new Injector();
+        injector.bind(pluginClass, plugin);
+        for (Object injectableInstance : injectableInstances) {
+            injector.add(injectableInstance);
         }
-        String[] newArgs = new String[args.length - 1];
-        for (int i = 0; i < newArgs.length; i++) {
-            newArgs[i] = args[i + 1];
+        return injector;
+    }
+
+    private static boolean overridesLegacy(Class<?> type, String method) {
+        try {
+            return type.getMethod(method, CommandSender.class, String.class, String[].class)
+                    .getDeclaringClass() != CommandRegistry.class;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
-        return newArgs;
     }
 
     private static <T extends JavaPlugin> List<ExecutableCommand<T>> scanCommands(String packageName, boolean recursive,
-            T plugin, Class<T> pluginClass, Object[] injectableInstances)
-            throws InstantiationException, IllegalAccessException, InvocationTargetException {
-        // build injectables map
-        Map<Class<?>, Object> injectables = new HashMap<>();
-        injectables.put(pluginClass, plugin);
-        for (Object injectableInstance : injectableInstances) {
-            injectables.put(injectableInstance.getClass(), injectableInstance);
+            T plugin, Class<T> pluginClass, Injector injector, boolean lazy)
+            throws IllegalAccessException, InvocationTargetException {
+        if (injector.getInstance(pluginClass) == null) {
+            injector.bind(pluginClass, plugin);
         }
-        // scan classes
-        List<ExecutableCommand<T>> commands = new LinkedList<>();
-        Set<Class<? extends ExecutableCommand<T>>> commandClasses = findClasses(packageName, recursive);
-        for (Class<? extends ExecutableCommand<T>> clazz : commandClasses) {
-            if (clazz.getDeclaredConstructors().length != 1) {
-                throw new IllegalStateException("The class " + clazz.getSimpleName()
-                        + " must have exactly one constructor for auto-instantiation");
+        Phase scan = StartupProfiler.phase("commands.scan " + packageName);
+        try (scan) {
+            List<ExecutableCommand<T>> commands = new LinkedList<>();
+            Set<Class<? extends ExecutableCommand<T>>> commandClasses;
+            Phase find = StartupProfiler.phase("commands.find " + packageName);
+            try (find) {
+                commandClasses = findClasses(packageName, recursive, pluginClass.getClassLoader());
             }
-            @SuppressWarnings("unchecked") // this is safe as clazz is Class<? extends ExecutableCommand<T>>
-            Constructor<ExecutableCommand<T>> constructor = (Constructor<ExecutableCommand<T>>) clazz
-                    .getDeclaredConstructors()[0];
-            Object[] params = new Object[constructor.getParameterCount()];
-            for (int i = 0; i < params.length; i++) {
-                Class<?> paramType = constructor.getParameterTypes()[i];
-                Object instance = injectables.get(paramType);
-                if (instance != null) {
-                    params[i] = paramType.cast(instance);
-                } else {
-                    throw new IllegalStateException("The class " + clazz.getSimpleName()
-                            + " has an invalid constructor param type: " + paramType.getSimpleName());
+            for (Class<? extends ExecutableCommand<T>> clazz : commandClasses) {
+                Phase create = StartupProfiler.phase("commands.create " + clazz.getName());
+                try (create) {
+                    commands.add(lazy ? LazyCommand.of(plugin, clazz, injector) : injector.create(clazz));
                 }
             }
-            commands.add(constructor.newInstance(params));
+            return commands;
         }
-        return commands;
     }
 
+    /**
+     * Find all concrete command classes in the given package. The compile time
+     * {@link CommandIndex} is used if present, the classpath is only scanned if no
+     * index lists any command of the package.
+     */
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private static <T extends JavaPlugin> Set<Class<? extends ExecutableCommand<T>>> findClasses(String packageName,
-            boolean recursive) {
-        Reflections reflections = new Reflections(packageName);
-        Set<Class<? extends ExecutableCommand>> commandClassesRaw = reflections.getSubTypesOf(ExecutableCommand.class);
-        if (!recursive) {
-            commandClassesRaw = commandClassesRaw.stream().filter(c -> packageName.equals(c.getPackageName()))
-                    .collect(Collectors.toSet());
+    static <T extends JavaPlugin> Set<Class<? extends ExecutableCommand<T>>> findClasses(String packageName,
+            boolean recursive, ClassLoader classLoader) {
+        Set<Class<? extends ExecutableCommand>> commandClassesRaw = findIndexedClasses(packageName, recursive,
+                classLoader);
+        if (commandClassesRaw.isEmpty()) {
+            Reflections reflections = new Reflections(packageName);
+            commandClassesRaw = reflections.getSubTypesOf(ExecutableCommand.class);
+            if (!recursive) {
+                commandClassesRaw = commandClassesRaw.stream().filter(c -> packageName.equals(c.getPackageName()))
+                        .collect(Collectors.toSet());
+            }
         }
         return commandClassesRaw.stream()
                 .map(c -> (Class<? extends ExecutableCommand<T>>) c)
                 .filter(c -> !Modifier.isAbstract(c.getModifiers())).collect(Collectors.toSet());
     }
+
+    @SuppressWarnings("rawtypes")
+    private static Set<Class<? extends ExecutableCommand>> findIndexedClasses(String packageName, boolean recursive,
+            ClassLoader classLoader) {
+        Set<String> classNames = CommandIndex.load(classLoader);
+        if (classNames == null) {
+            return Set.of();
+        }
+        Set<Class<? extends ExecutableCommand>> commandClasses = new HashSet<>();
+        for (String className : classNames) {
+            if (CommandIndex.isInPackage(className, packageName, recursive)) {
+                try {
+                    Class<?> clazz = Class.forName(className, false, classLoader);
+                    if (ExecutableCommand.class.isAssignableFrom(clazz)) {
+                        commandClasses.add(clazz.asSubclass(ExecutableCommand.class));
+                    }
+                } catch (ClassNotFoundException e) {
+                    // stale index entry, the class was removed
+                }
+            }
+        }
+        return commandClasses;
+    }
 }
@@ -0,0 +1,153 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+/**
+ * Immutable sorted index of the lowercase names and aliases of all commands in
+ * a {@link CommandRegistry} to answer tab completion prefix queries. Results
+ * are views on a shared immutable list, the empty prefix and all single
+ * character prefixes are precomputed so the most frequent queries do not
+ * allocate at all. Names of commands requiring a permission are filtered per
+ * sender.
+ */
+final class CompletionIndex {
+
+    private final List<String> sorted;
+    private final int limit;
+    private final Map<String, List<String>> shared = new HashMap<>();
+    private final Map<String, String> permissions = new HashMap<>();
+
+    /**
+     * Build the index for the given commands
+     *
+     * @param commands registered commands
+     * @param limit    maximum number of completions returned per query
+     */
+    CompletionIndex(List<? extends ExecutableCommand<?>> commands, int limit) {
+        TreeSet<String> names = new TreeSet<>();
+        for (ExecutableCommand<?> command : commands) {
+            String permission = command.getPermission();
+            add(names, command.getName(), permission);
+            for (String alias : command.getAliases()) {
+                add(names, alias, permission);
+            }
+        }
+        this.sorted = List.copyOf(names);
+        this.limit = limit;
+        shared.put("", range(0, sorted.size()));
+        for (String name : sorted) {
+            if (!name.isEmpty()) {
+                shared.computeIfAbsent(name.substring(0, 1), this::lookup);
+            }
+        }
+    }
+
+    /**
+     * Get all names and aliases starting with the given prefix ignoring case
+     *
+     * @param prefix the prefix typed so far
+     * @return immutable sorted list of matching lowercase names
+     */
+    List<String> complete(String prefix) {
+        String normalized = DispatchIndex.normalize(prefix);
+        List<String> result = shared.get(normalized);
+        return result != null ? result : lookup(normalized);
+    }
+
+    /**
+     * Get all names and aliases starting with the given prefix ignoring case of
+     * commands the sender is permitted to use
+     *
+     * @param prefix    the prefix typed so far
+     * @param permitted tests whether the sender has a permission node
+     * @return immutable sorted list of matching lowercase names
+     */
+    List<String> complete(String prefix, Predicate<String> permitted) {
+        if (permissions.isEmpty()) {
+            return complete(prefix);
+        }
+        String normalized = DispatchIndex.normalize(prefix);
+        List<String> result = new ArrayList<>();
+        for (int i = start(normalized); i < sorted.size() && result.size() < limit; i++) {
+            String name = sorted.get(i);
+            if (!name.startsWith(normalized)) {
+                break;
+            }
+            String permission = permissions.get(name);
+            if (permission == null || permitted.test(permission)) {
+                result.add(name);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Check whether any indexed command requires a permission
+     *
+     * @return true if completions have to be filtered per sender
+     */
+    boolean hasPermissions() {
+        return !permissions.isEmpty();
+    }
+
+    /**
+     * Get the maximum number of completions returned per query
+     *
+     * @return completion limit
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    private List<String> lookup(String prefix) {
+        int from = start(prefix);
+        int to = from;
+        while (to < sorted.size() && to - from < limit && sorted.get(to).startsWith(prefix)) {
+            to++;
+        }
+        return range(from, to);
+    }
+
+    private int start(String prefix) {
+        int from = Collections.binarySearch(sorted, prefix);
+        return from < 0 ? -from - 1 : from;
+    }
+
+    private void add(TreeSet<String> names, String name, String permission) {
+        String normalized = DispatchIndex.normalize(name);
+        if (names.add(normalized) && permission != null && !permission.isEmpty()) {
+            permissions.put(normalized, permission);
+        }
+    }
+
+    private List<String> range(int from, int to) {
+        return sorted.subList(from, to - from > limit ? from + limit : to);
+    }
+}
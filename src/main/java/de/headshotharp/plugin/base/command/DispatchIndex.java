@@ -0,0 +1,134 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+/**
+ * Immutable lookup table to find the applicable subcommand of a
+ * {@link CommandRegistry}. Commands using the default
+ * {@link ExecutableCommand#isApplicable(CommandSender, String, String...)
+ * isApplicable} are resolved by their lowercase name and aliases, all others
+ * are scanned in registration order. The first registered command that applies
+ * wins, exactly like a plain ordered scan.
+ *
+ * @param <T> Base class of the implementing
+ *            {@link org.bukkit.plugin.java.JavaPlugin JavaPlugin}
+ */
+final class DispatchIndex<T extends JavaPlugin> {
+
+    private final Map<String, IndexedCommand<T>> byName = new HashMap<>();
+    private final List<IndexedCommand<T>> customApplicable = new ArrayList<>();
+
+    /**
+     * Build the index for the given commands
+     *
+     * @param commands registered commands in registration order
+     */
+    DispatchIndex(List<ExecutableCommand<T>> commands) {
+        int position = 0;
+        for (ExecutableCommand<T> command : commands) {
+            IndexedCommand<T> indexed = new IndexedCommand<>(position++, command);
+            if (usesDefaultApplicability(command)) {
+                byName.putIfAbsent(normalize(command.getName()), indexed);
+                for (String alias : command.getAliases()) {
+                    byName.putIfAbsent(normalize(alias), indexed);
+                }
+            } else {
+                customApplicable.add(indexed);
+            }
+        }
+    }
+
+    /**
+     * Find the first applicable command
+     *
+     * @param sender  the command sender
+     * @param command the subcommand name
+     * @param args    the arguments to the subcommand
+     * @return the applicable command or null if no command applies
+     */
+    ExecutableCommand<T> find(CommandSender sender, String command, Arguments args) {
+        IndexedCommand<T> hit = byName.get(normalize(command));
+        int limit = hit == null ? Integer.MAX_VALUE : hit.position();
+        for (IndexedCommand<T> custom : customApplicable) {
+            if (custom.position() >= limit) {
+                break;
+            }
+            if (custom.command().isApplicable(sender, command, args)) {
+                return custom.command();
+            }
+        }
+        return hit == null ? null : hit.command();
+    }
+
+    /**
+     * Check whether the command relies on the default name and alias matching of
+     * {@link ExecutableCommand}
+     *
+     * @param command the command to check
+     * @return true if isApplicable is not overridden
+     */
+    static boolean usesDefaultApplicability(ExecutableCommand<?> command) {
+        return usesDefaultApplicability(command.getClass());
+    }
+
+    /**
+     * Check whether the command class relies on the default name and alias
+     * matching of {@link ExecutableCommand}
+     *
+     * @param type the command class to check
+     * @return true if isApplicable is not overridden
+     */
+    static boolean usesDefaultApplicability(Class<?> type) {
+        try {
+            return type.getMethod("isApplicable", CommandSender.class, String.class, String[].class)
+                    .getDeclaringClass() == ExecutableCommand.class
+                    && type.getMethod("isApplicable", CommandSender.class, String.class, Arguments.class)
+                            .getDeclaringClass() == ExecutableCommand.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lowercase the given command name. Already lowercase names are returned
+     * without copying.
+     *
+     * @param name command name
+     * @return lowercase name
+     */
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private record IndexedCommand<T extends JavaPlugin>(int position, ExecutableCommand<T> command) {
+    }
+}
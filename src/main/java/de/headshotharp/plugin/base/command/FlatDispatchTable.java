@@ -0,0 +1,258 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.generic.ExecutionPolicy;
+import de.headshotharp.plugin.base.command.ratelimit.RateLimit;
+
+/**
+ * Immutable table resolving a whole path of subcommand names, like
+ * {@code admin item set}, to the command at its end. All levels of a
+ * {@link CommandRegistry} tree are stored in one open addressing table keyed by
+ * the entry of the previous level and the lowercase name, so resolving a path
+ * neither allocates nor passes through the intermediate registries.<br />
+ * Nested registries are only inlined if dispatching through them has no
+ * observable effect: they must use the default execute implementation, must not
+ * require a permission, be restricted to players, rate limited or executed
+ * asynchronously. Levels
+ * containing commands with a custom
+ * {@link ExecutableCommand#isApplicable(CommandSender, String, Arguments)
+ * isApplicable} are delegated to their registry, as are levels where no command
+ * matches, which therefore show the usage of their registry as before.
+ *
+ * @param <T> Base class of the implementing
+ *            {@link org.bukkit.plugin.java.JavaPlugin JavaPlugin}
+ */
+final class FlatDispatchTable<T extends JavaPlugin> {
+
+    private static final int ROOT_ID = 0;
+
+    private final CommandRegistry<T> root;
+    private final boolean rootOpaque;
+    private final Entry<T>[] slots;
+    private final int mask;
+
+    private FlatDispatchTable(CommandRegistry<T> root, boolean rootOpaque, List<Entry<T>> entries) {
+        this.root = root;
+        this.rootOpaque = rootOpaque;
+        int capacity = Integer.highestOneBit(Math.max(2, entries.size() * 2) - 1) << 1;
+        this.slots = newSlots(capacity);
+        this.mask = capacity - 1;
+        for (Entry<T> entry : entries) {
+            int index = slot(entry.parentId, entry.name);
+            while (slots[index] != null) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = entry;
+        }
+    }
+
+    /**
+     * Compile the table for the given registry and all nested registries
+     *
+     * @param <T>  Base class of the implementing plugin
+     * @param root the registry to compile
+     * @return the compiled table
+     */
+    static <T extends JavaPlugin> FlatDispatchTable<T> compile(CommandRegistry<T> root) {
+        Compiler<T> compiler = new Compiler<>();
+        boolean rootOpaque = compiler.add(root, ROOT_ID);
+        return new FlatDispatchTable<>(root, rootOpaque, compiler.entries);
+    }
+
+    /**
+     * Get the number of command paths in this table
+     *
+     * @return number of paths including paths to nested registries
+     */
+    int size() {
+        int size = 0;
+        for (Entry<T> entry : slots) {
+            if (entry != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Dispatch the given arguments through the registry tree
+     *
+     * @param sender the command sender
+     * @param args   all arguments to the root command
+     * @return false if the first level has to be dispatched by the root registry
+     *         itself
+     */
+    boolean dispatch(CommandSender sender, Arguments args) {
+        if (rootOpaque) {
+            return false;
+        }
+        CommandRegistry<T> registry = root;
+        int parentId = ROOT_ID;
+        int depth = 0;
+        while (depth < args.size()) {
+            String token = args.get(depth);
+            Entry<T> entry = find(parentId, DispatchIndex.normalize(token));
+            if (entry == null) {
+                break;
+            }
+            if (entry.nested == null) {
+                registry.invoke(sender, entry.command, token, args.from(depth + 1));
+                return true;
+            }
+            registry = entry.nested;
+            parentId = entry.id;
+            depth++;
+            if (entry.opaque) {
+                registry.execute(sender, token, args.from(depth));
+                return true;
+            }
+        }
+        registry.sendUsage(sender);
+        return true;
+    }
+
+    private Entry<T> find(int parentId, String name) {
+        int index = slot(parentId, name);
+        Entry<T> entry;
+        while ((entry = slots[index]) != null) {
+            if (entry.parentId == parentId && entry.name.equals(name)) {
+                return entry;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private int slot(int parentId, String name) {
+        int hash = parentId * 0x9E3779B9 + name.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <T extends JavaPlugin> Entry<T>[] newSlots(int capacity) {
+        return new Entry[capacity];
+    }
+
+    /**
+     * Check whether dispatching through the given nested registry may be skipped
+     *
+     * @param registry the nested registry
+     * @return true if the registry can be inlined into the table of its parent
+     */
+    static boolean isInlinable(CommandRegistry<?> registry) {
+        try {
+            Class<?> type = registry.getClass();
+            return type.getMethod("execute", CommandSender.class, String.class, Arguments.class)
+                    .getDeclaringClass() == CommandRegistry.class
+                    && type.getMethod("execute", CommandSender.class, String.class, String[].class)
+                            .getDeclaringClass() == CommandRegistry.class
+                    && registry.getPermission() == null && !registry.isForPlayerOnly()
+                    && registry.getRateLimit() == RateLimit.NONE
+                    && registry.getExecutionPolicy() == ExecutionPolicy.SYNC;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static final class Entry<T extends JavaPlugin> {
+
+        private final int id;
+        private final int parentId;
+        private final String name;
+        private final ExecutableCommand<T> command;
+        private final CommandRegistry<T> nested;
+        private final boolean opaque;
+
+        private Entry(int id, int parentId, String name, ExecutableCommand<T> command, CommandRegistry<T> nested,
+                boolean opaque) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+            this.command = command;
+            this.nested = nested;
+            this.opaque = opaque;
+        }
+    }
+
+    private static final class Compiler<T extends JavaPlugin> {
+
+        private final List<Entry<T>> entries = new ArrayList<>();
+        private final Set<String> keys = new HashSet<>();
+        private final Set<CommandRegistry<T>> path = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int nextId = ROOT_ID + 1;
+
+        /**
+         * Add all commands of the given registry below the given parent entry. The
+         * first command registered for a name wins, like in {@link DispatchIndex}.
+         *
+         * @return true if the level has to be dispatched by the registry itself
+         */
+        private boolean add(CommandRegistry<T> registry, int parentId) {
+            List<ExecutableCommand<T>> commands = registry.getCommands();
+            for (ExecutableCommand<T> command : commands) {
+                if (!DispatchIndex.usesDefaultApplicability(command)) {
+                    return true;
+                }
+            }
+            path.add(registry);
+            for (ExecutableCommand<T> command : commands) {
+                Entry<T> first = null;
+                List<String> names = new ArrayList<>();
+                names.add(command.getName());
+                names.addAll(command.getAliases());
+                for (String name : names) {
+                    String normalized = DispatchIndex.normalize(name);
+                    if (keys.add(parentId + " " + normalized)) {
+                        Entry<T> entry = first == null ? createEntry(parentId, normalized, command)
+                                : new Entry<>(first.id, parentId, normalized, command, first.nested, first.opaque);
+                        entries.add(entry);
+                        if (first == null) {
+                            first = entry;
+                        }
+                    }
+                }
+            }
+            path.remove(registry);
+            return false;
+        }
+
+        private Entry<T> createEntry(int parentId, String name, ExecutableCommand<T> command) {
+            int id = nextId++;
+            if (command instanceof CommandRegistry<T> nested && !path.contains(nested) && isInlinable(nested)) {
+                boolean opaque = add(nested, id);
+                return new Entry<>(id, parentId, name, command, nested, opaque);
+            }
+            return new Entry<>(id, parentId, name, command, null, false);
+        }
+    }
+}
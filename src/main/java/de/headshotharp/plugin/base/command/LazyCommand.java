@@ -0,0 +1,227 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.CommandInfo;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.generic.ExecutionPolicy;
+import de.headshotharp.plugin.base.command.inject.Injector;
+import de.headshotharp.plugin.base.command.inject.InstanceFactory;
+import de.headshotharp.plugin.base.command.ratelimit.RateLimit;
+
+/**
+ * Placeholder for a command annotated with {@link CommandInfo}. Name, aliases,
+ * player only flag, permission and async tab completion settings are read from
+ * the annotation, so the command can be indexed for dispatch and completion
+ * without being instantiated. Constructor parameters are resolved by the
+ * injector right away, so missing injectables fail on plugin enable. The command
+ * itself is created when it is first executed or completed, or when any other of
+ * its properties is requested. Instantiation is thread-safe and happens at most
+ * once, annotation values not matching the created command are logged as
+ * warning.
+ *
+ * @param <T> Base class of the implementing
+ *            {@link org.bukkit.plugin.java.JavaPlugin JavaPlugin}
+ */
+public final class LazyCommand<T extends JavaPlugin> extends ExecutableCommand<T> {
+
+    private final Class<? extends ExecutableCommand<T>> type;
+    private final CommandInfo info;
+    private final List<String> aliases;
+    private final InstanceFactory<? extends ExecutableCommand<T>> factory;
+    private volatile ExecutableCommand<T> command;
+
+    private LazyCommand(T plugin, Class<? extends ExecutableCommand<T>> type, CommandInfo info,
+            InstanceFactory<? extends ExecutableCommand<T>> factory) {
+        super(plugin);
+        this.type = type;
+        this.info = info;
+        this.aliases = List.of(info.aliases());
+        this.factory = factory;
+    }
+
+    /**
+     * Create a placeholder for the given command class. Classes without
+     * {@link CommandInfo} and classes overriding isApplicable cannot be matched
+     * by their metadata and are instantiated immediately.
+     *
+     * @param <T>      Base class of the implementing plugin
+     * @param plugin   base plugin implementation
+     * @param type     the command class
+     * @param injector injector providing constructor parameters
+     * @return the placeholder or the instantiated command
+     * @throws IllegalAccessException    thrown if the constructor is not accessible
+     * @throws InvocationTargetException thrown if the constructor cannot be invoked
+     * @throws IllegalStateException     thrown if a constructor parameter cannot be
+     *                                   resolved
+     */
+    public static <T extends JavaPlugin> ExecutableCommand<T> of(T plugin, Class<? extends ExecutableCommand<T>> type,
+            Injector injector) throws IllegalAccessException, InvocationTargetException {
+        CommandInfo info = type.getAnnotation(CommandInfo.class);
+        if (info == null || !DispatchIndex.usesDefaultApplicability(type)) {
+            return injector.create(type);
+        }
+        return new LazyCommand<>(plugin, type, info, injector.getFactory(type));
+    }
+
+    /**
+     * Get the command, instantiating it on first access
+     *
+     * @return the command
+     * @throws IllegalStateException if the command cannot be instantiated
+     */
+    public ExecutableCommand<T> getCommand() {
+        ExecutableCommand<T> result = command;
+        if (result == null) {
+            synchronized (this) {
+                result = command;
+                if (result == null) {
+                    try {
+                        result = factory.create();
+                    } catch (IllegalAccessException | InvocationTargetException e) {
+                        throw new IllegalStateException("Could not create command " + info.name(), e);
+                    }
+                    command = result;
+                    validate(result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check whether the command has been instantiated yet
+     *
+     * @return true if the command exists
+     */
+    public boolean isInstantiated() {
+        return command != null;
+    }
+
+    /**
+     * Get the class of the command
+     *
+     * @return the command class
+     */
+    public Class<? extends ExecutableCommand<T>> getType() {
+        return type;
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String command, String... args) {
+        return getCommand().execute(sender, command, args);
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String command, Arguments args) {
+        return getCommand().execute(sender, command, args);
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+        return getCommand().onTabComplete(sender, command, args);
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String command, Arguments args) {
+        return getCommand().onTabComplete(sender, command, args);
+    }
+
+    @Override
+    public boolean isForPlayerOnly() {
+        return info.playerOnly();
+    }
+
+    @Override
+    public String usage() {
+        return info.usage().isEmpty() ? getCommand().usage() : info.usage();
+    }
+
+    @Override
+    public String getName() {
+        return info.name();
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    @Override
+    public String getPermission() {
+        return info.permission().isEmpty() ? null : info.permission();
+    }
+
+    @Override
+    public ExecutionPolicy getExecutionPolicy() {
+        return getCommand().getExecutionPolicy();
+    }
+
+    @Override
+    public RateLimit getRateLimit() {
+        return getCommand().getRateLimit();
+    }
+
+    @Override
+    public boolean isTabCompletionAsyncSafe() {
+        return info.asyncTabCompletion();
+    }
+
+    @Override
+    public Duration getTabCompletionCacheTtl() {
+        return Duration.ofMillis(info.tabCompletionCacheTtlMillis());
+    }
+
+    private void validate(ExecutableCommand<T> created) {
+        List<String> mismatches = new ArrayList<>();
+        compare(mismatches, "name", getName(), created.getName());
+        compare(mismatches, "aliases", getAliases(), created.getAliases());
+        if (!info.usage().isEmpty()) {
+            compare(mismatches, "usage", info.usage(), created.usage());
+        }
+        compare(mismatches, "playerOnly", isForPlayerOnly(), created.isForPlayerOnly());
+        String permission = created.getPermission();
+        compare(mismatches, "permission", getPermission(),
+                permission == null || permission.isEmpty() ? null : permission);
+        compare(mismatches, "asyncTabCompletion", isTabCompletionAsyncSafe(), created.isTabCompletionAsyncSafe());
+        compare(mismatches, "tabCompletionCacheTtlMillis", info.tabCompletionCacheTtlMillis(),
+                created.getTabCompletionCacheTtl().toMillis());
+        if (!mismatches.isEmpty()) {
+            getPlugin().getLogger().warning(() -> "@CommandInfo of " + type.getName()
+                    + " does not match the command: " + String.join(", ", mismatches));
+        }
+    }
+
+    private static void compare(List<String> mismatches, String property, Object annotated, Object actual) {
+        if (!Objects.equals(annotated, actual)) {
+            mismatches.add(property + " is " + annotated + " but the command returns " + actual);
+        }
+    }
+}
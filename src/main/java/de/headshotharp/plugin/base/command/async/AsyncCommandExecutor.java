@@ -0,0 +1,222 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import de.headshotharp.plugin.base.PluginServices;
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.generic.ExecutionPolicy;
+import de.headshotharp.plugin.base.command.metrics.CommandMetrics;
+
+/**
+ * Bounded executor for commands using {@link ExecutionPolicy#ASYNC}. Commands
+ * are rejected with a message to the sender if all threads are busy and the
+ * queue is full. Failures and usage hints are reported to the sender on the
+ * server thread. The executor is shut down when the plugin gets disabled,
+ * interrupting running commands.
+ */
+public class AsyncCommandExecutor implements AutoCloseable {
+
+    /**
+     * Default number of queued commands if all threads are busy
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 2;
+
+    private final Plugin plugin;
+    private final MainThread mainThread;
+    private final ExecutorService executor;
+    private final Semaphore running;
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final int maxSubmitted;
+
+    /**
+     * Create an executor
+     *
+     * @param plugin         the owning plugin
+     * @param threads        maximum number of concurrently executed commands
+     * @param queueCapacity  maximum number of commands waiting for execution
+     * @param virtualThreads use virtual threads if supported by the runtime (Java
+     *                       21+), platform threads otherwise
+     */
+    public AsyncCommandExecutor(Plugin plugin, int threads, int queueCapacity, boolean virtualThreads) {
+        this.plugin = plugin;
+        this.mainThread = MainThread.of(plugin);
+        this.maxSubmitted = threads + queueCapacity;
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.running = new Semaphore(threads);
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                        Thread thread = new Thread(runnable,
+                                plugin.getName() + "-command-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+            this.running = null;
+        }
+    }
+
+    /**
+     * Get the executor of the given plugin, created with default settings on first
+     * access
+     *
+     * @param plugin the plugin
+     * @return executor of the plugin
+     */
+    public static AsyncCommandExecutor of(Plugin plugin) {
+        return PluginServices.get(plugin, AsyncCommandExecutor.class, p -> new AsyncCommandExecutor(p,
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_QUEUE_CAPACITY, false));
+    }
+
+    /**
+     * Configure the executor of the given plugin. Must be called before any
+     * asynchronous command is executed, for example in onEnable.
+     *
+     * @param plugin         the plugin
+     * @param threads        maximum number of concurrently executed commands
+     * @param queueCapacity  maximum number of commands waiting for execution
+     * @param virtualThreads use virtual threads if supported by the runtime
+     * @return executor of the plugin
+     */
+    public static AsyncCommandExecutor configure(Plugin plugin, int threads, int queueCapacity,
+            boolean virtualThreads) {
+        return PluginServices.register(plugin, AsyncCommandExecutor.class,
+                new AsyncCommandExecutor(plugin, threads, queueCapacity, virtualThreads));
+    }
+
+    /**
+     * Execute the given command asynchronously
+     *
+     * @param sender  the command sender
+     * @param command the command to execute
+     * @param name    the command name as passed to execute
+     * @param args    the arguments to the command
+     */
+    public void execute(CommandSender sender, ExecutableCommand<?> command, String name, Arguments args) {
+        execute(sender, command, name, args, CommandMetrics.NONE);
+    }
+
+    /**
+     * Execute the given command asynchronously and record its latency
+     *
+     * @param sender  the command sender
+     * @param command the command to execute
+     * @param name    the command name as passed to execute
+     * @param args    the arguments to the command
+     * @param metrics the metrics to record the execution in
+     */
+    public void execute(CommandSender sender, ExecutableCommand<?> command, String name, Arguments args,
+            CommandMetrics metrics) {
+        try {
+            if (submitted.incrementAndGet() > maxSubmitted) {
+                throw new RejectedExecutionException();
+            }
+            executor.execute(() -> {
+                try {
+                    run(sender, command, name, args, metrics);
+                } finally {
+                    submitted.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            sender.sendMessage(ChatColor.DARK_RED + "The server is busy, please try again later");
+        }
+    }
+
+    private void run(CommandSender sender, ExecutableCommand<?> command, String name, Arguments args,
+            CommandMetrics metrics) {
+        try {
+            if (running != null) {
+                running.acquire();
+            }
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                success = command.execute(sender, name, args);
+                if (!success) {
+                    reply(sender, ChatColor.DARK_RED + command.usage());
+                }
+            } finally {
+                metrics.recordExecution(command, System.nanoTime() - start, success);
+                if (running != null) {
+                    running.release();
+                }
+            }
+        } catch (InterruptedException | CancellationException e) {
+            Thread.currentThread().interrupt();
+            reply(sender, ChatColor.DARK_RED + "The command was cancelled");
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Error while executing command " + name, e);
+            reply(sender, ChatColor.DARK_RED + "An internal error occurred while executing the command");
+        }
+    }
+
+    private void reply(CommandSender sender, String message) {
+        mainThread.run(() -> sender.sendMessage(message));
+    }
+
+    /**
+     * Shut down the executor and interrupt running commands, called when the
+     * plugin gets disabled. Waits briefly for interrupted commands to hand their
+     * replies to the {@link MainThread}, which is closed afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Asynchronous commands did not stop within "
+                        + SHUTDOWN_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.async;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+
+import de.headshotharp.plugin.base.command.CommandRegistry;
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+/**
+ * Completes commands of a {@link CommandRegistry} tree in Paper's
+ * {@link AsyncTabCompleteEvent}, off the server thread. Subcommand names are
+ * always completed asynchronously, other commands only if they declare
+ * {@link ExecutableCommand#isTabCompletionAsyncSafe()}. Everything else falls
+ * back to the synchronous Bukkit tab completer.<br />
+ * Results are cached per command and sender for
+ * {@link ExecutableCommand#getTabCompletionCacheTtl()} and identical requests of
+ * the same sender running at the same time are computed only once. Senders
+ * failing {@link PluginCommand#testPermissionSilent(CommandSender)} get no
+ * completions, just like with the synchronous tab completer.
+ */
+public class AsyncTabCompleter implements Listener {
+
+    private static final String PAPER_EVENT = "com.destroystokyo.paper.event.server.AsyncTabCompleteEvent";
+
+    private final CommandRegistry<?> registry;
+    private final PluginCommand command;
+    private final Set<String> labels = new HashSet<>();
+    private final Map<ExecutableCommand<?>, CompletionCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Create an async tab completer for the given registry
+     *
+     * @param registry the root registry
+     * @param command  the plugin command the registry is registered for
+     */
+    public AsyncTabCompleter(CommandRegistry<?> registry, PluginCommand command) {
+        this.registry = registry;
+        this.command = command;
+        labels.add(command.getName().toLowerCase(Locale.ROOT));
+        command.getAliases().forEach(alias -> labels.add(alias.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Register an async tab completer for the given registry if the server
+     * supports Paper's {@link AsyncTabCompleteEvent}
+     *
+     * @param registry the root registry, already registered as plugin command
+     * @param command  the plugin command the registry is registered for
+     * @return true if the async tab completer was registered
+     */
+    public static boolean register(CommandRegistry<?> registry, PluginCommand command) {
+        try {
+            Class.forName(PAPER_EVENT, false, AsyncTabCompleter.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+        registry.getServer().getPluginManager().registerEvents(new AsyncTabCompleter(registry, command),
+                registry.getPlugin());
+        return true;
+    }
+
+    /**
+     * Complete the command in the buffer if it belongs to the registry
+     *
+     * @param event the async tab complete event
+     */
+    @EventHandler(ignoreCancelled = true)
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (event.isHandled() || !event.isCommand()) {
+            return;
+        }
+        String buffer = event.getBuffer();
+        int start = buffer.startsWith("/") ? 1 : 0;
+        int space = buffer.indexOf(' ', start);
+        if (space < 0) {
+            return;
+        }
+        String label = buffer.substring(start, space);
+        // strip namespace, e.g. /plugin:command
+        label = label.substring(label.indexOf(':') + 1).toLowerCase(Locale.ROOT);
+        if (!labels.contains(label)) {
+            return;
+        }
+        if (!command.testPermissionSilent(event.getSender())) {
+            event.setCompletions(new ArrayList<>());
+            event.setHandled(true);
+            return;
+        }
+        Arguments args = Arguments.of(buffer.substring(space + 1).split(" ", -1));
+        List<String> completions = complete(event.getSender(), registry, registry.getName(), args);
+        if (completions != null) {
+            event.setCompletions(new ArrayList<>(completions));
+            event.setHandled(true);
+        }
+    }
+
+    /**
+     * Complete the given arguments
+     *
+     * @param sender  the command sender
+     * @param command the command to complete
+     * @param name    the command name
+     * @param args    arguments typed so far
+     * @return the completions or null if the completion must run on the server
+     *         thread
+     */
+    List<String> complete(CommandSender sender, ExecutableCommand<?> command, String name, Arguments args) {
+        if (command instanceof CommandRegistry<?> nested && nested.usesDefaultTabCompletion()) {
+            if (args.size() <= 1) {
+                return args.isEmpty() ? List.of() : nested.onTabComplete(sender, name, args);
+            }
+            String subcommand = args.get(0);
+            Arguments subArgs = args.shift();
+            ExecutableCommand<?> target = nested.findCommand(sender, subcommand, subArgs);
+            return target == null || !nested.hasPermission(sender, target) ? List.of()
+                    : complete(sender, target, subcommand, subArgs);
+        }
+        if (!command.isTabCompletionAsyncSafe()) {
+            return null;
+        }
+        return completeCached(sender, command, name, args);
+    }
+
+    private List<String> completeCached(CommandSender sender, ExecutableCommand<?> command, String name,
+            Arguments args) {
+        // completions may depend on the sender, e.g. on permissions or location
+        String key = sender.getName() + '\n' + name + ' ' + args.join(0);
+        Duration ttl = command.getTabCompletionCacheTtl();
+        CompletionCache cache = ttl.isZero() || ttl.isNegative() ? null
+                : caches.computeIfAbsent(command, c -> new CompletionCache(ttl));
+        if (cache != null) {
+            List<String> cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        CompletableFuture<List<String>> own = new CompletableFuture<>();
+        CompletableFuture<List<String>> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            List<String> completions = command.onTabComplete(sender, name, args);
+            completions = completions == null ? List.of() : List.copyOf(completions);
+            if (cache != null) {
+                cache.put(key, completions);
+            }
+            own.complete(completions);
+            return completions;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.async;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time based cache of tab completion results of a single command, keyed by the
+ * sender and the typed arguments.
+ */
+class CompletionCache {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Create a cache
+     *
+     * @param ttl time to keep completion results
+     */
+    CompletionCache(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Get the cached completions
+     *
+     * @param key the sender and the typed arguments
+     * @return cached completions or null if absent or expired
+     */
+    List<String> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() - System.nanoTime() < 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.completions();
+    }
+
+    /**
+     * Cache the given completions
+     *
+     * @param key         the sender and the typed arguments
+     * @param completions the completions
+     */
+    void put(String key, List<String> completions) {
+        long now = System.nanoTime();
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(entry -> entry.expiresAt() - now < 0);
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry(completions, now + ttlNanos));
+    }
+
+    private record Entry(List<String> completions, long expiresAt) {
+    }
+}
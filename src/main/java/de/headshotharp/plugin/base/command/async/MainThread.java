@@ -0,0 +1,201 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.async;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.bukkit.plugin.Plugin;
+
+import de.headshotharp.plugin.base.PluginServices;
+
+/**
+ * Hands tasks from asynchronous commands back to the server thread, where the
+ * Bukkit API may be used safely. While the plugin is being disabled the
+ * scheduler rejects new tasks, so tasks submitted from other threads are kept
+ * until {@link #close()} runs them on the server thread at the end of
+ * onDisable. Tasks still pending after that are cancelled, so waiting threads
+ * never block forever.
+ */
+public class MainThread implements AutoCloseable {
+
+    /**
+     * Default time to wait for the server thread in
+     * {@link #call(Callable)}
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Plugin plugin;
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    private final Queue<Runnable> deferred = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
+
+    MainThread(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the main thread handoff of the given plugin
+     *
+     * @param plugin the plugin
+     * @return main thread handoff of the plugin
+     */
+    public static MainThread of(Plugin plugin) {
+        return PluginServices.get(plugin, MainThread.class, MainThread::new);
+    }
+
+    /**
+     * Run the given task on the server thread. The task runs immediately if
+     * already called from the server thread.
+     *
+     * @param <R>  result type
+     * @param task the task
+     * @return future completed with the result of the task, or completed
+     *         exceptionally with a {@link CancellationException} if the plugin
+     *         is disabled
+     */
+    public <R> CompletableFuture<R> submit(Callable<R> task) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(disabled());
+        } else if (plugin.getServer().isPrimaryThread()) {
+            complete(future, task);
+        } else {
+            pending.add(future);
+            future.whenComplete((result, error) -> pending.remove(future));
+            if (!plugin.isEnabled()) {
+                // onDisable is running, the scheduler does not accept tasks anymore
+                deferred.add(() -> complete(future, task));
+                if (closed) {
+                    future.completeExceptionally(disabled());
+                }
+                return future;
+            }
+            try {
+                plugin.getServer().getScheduler().runTask(plugin, () -> complete(future, task));
+            } catch (RuntimeException e) {
+                // the plugin got disabled in the meantime
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Run the given task on the server thread without waiting for it
+     *
+     * @param task the task
+     */
+    public void run(Runnable task) {
+        submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the given task on the server thread and wait for its result at most
+     * {@link #DEFAULT_TIMEOUT}
+     *
+     * @param <R>  result type
+     * @param task the task
+     * @return result of the task
+     * @throws CompletionException   if the task failed or timed out
+     * @throws CancellationException if the plugin got disabled or the waiting
+     *                               thread was interrupted
+     */
+    public <R> R call(Callable<R> task) {
+        return call(task, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Run the given task on the server thread and wait for its result. The task is
+     * cancelled if it did not start within the timeout.
+     *
+     * @param <R>     result type
+     * @param task    the task
+     * @param timeout maximum time to wait
+     * @return result of the task
+     * @throws CompletionException   if the task failed or timed out
+     * @throws CancellationException if the plugin got disabled or the waiting
+     *                               thread was interrupted
+     */
+    public <R> R call(Callable<R> task, Duration timeout) {
+        CompletableFuture<R> future = submit(task);
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new CancellationException("Interrupted while waiting for the server thread");
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new CompletionException("The server thread did not respond within " + timeout, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancellation) {
+                throw cancellation;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Run tasks submitted while the plugin was being disabled and cancel all
+     * other pending tasks. Must be called on the server thread, where
+     * {@link PluginServices#closeAll(Plugin)} runs after onDisable.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Runnable task;
+        while ((task = deferred.poll()) != null) {
+            task.run();
+        }
+        for (CompletableFuture<?> future : pending) {
+            future.completeExceptionally(disabled());
+        }
+    }
+
+    private CancellationException disabled() {
+        return new CancellationException("The plugin " + plugin.getName() + " is disabled");
+    }
+
+    private static <R> void complete(CompletableFuture<R> future, Callable<R> task) {
+        if (future.isDone()) {
+            // cancelled or timed out before the server thread picked it up
+            return;
+        }
+        try {
+            future.complete(task.call());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.completion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import de.headshotharp.plugin.base.PluginServices;
+
+/**
+ * Sorted, case-insensitive index of online player names for tab completion.
+ * The index is updated on join and quit instead of iterating and lowercasing all
+ * online players on every keystroke. Prefix queries cost O(log n + limit) and
+ * are safe from any thread, including asynchronous tab completion. The index
+ * must be created on the server thread, which
+ * {@link de.headshotharp.plugin.base.command.CommandRegistry#registerCommands()
+ * CommandRegistry.registerCommands()} does.
+ */
+public class PlayerNameIndex implements Listener, AutoCloseable {
+
+    /**
+     * Default maximum number of names returned by {@link #complete(String)}
+     */
+    public static final int DEFAULT_LIMIT = 50;
+
+    private final NavigableMap<String, String> names = new ConcurrentSkipListMap<>();
+
+    /**
+     * Create an index of the currently online players and keep it updated. Must be
+     * called on the server thread.
+     *
+     * @param plugin the plugin registering the listener
+     */
+    public PlayerNameIndex(Plugin plugin) {
+        // listen first so players joining in between are not missed
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            add(player.getName());
+        }
+    }
+
+    /**
+     * Get the index of the given plugin, created on first access. The first access
+     * must happen on the server thread.
+     *
+     * @param plugin the plugin
+     * @return the player name index
+     */
+    public static PlayerNameIndex of(Plugin plugin) {
+        return PluginServices.get(plugin, PlayerNameIndex.class, PlayerNameIndex::new);
+    }
+
+    /**
+     * Get online player names starting with the given prefix, ignoring case
+     *
+     * @param prefix the prefix typed so far
+     * @return up to {@link #DEFAULT_LIMIT} names in alphabetical order
+     */
+    public List<String> complete(String prefix) {
+        return complete(prefix, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Get online player names starting with the given prefix, ignoring case
+     *
+     * @param prefix the prefix typed so far
+     * @param limit  maximum number of names
+     * @return up to limit names in alphabetical order
+     */
+    public List<String> complete(String prefix, int limit) {
+        NavigableMap<String, String> matches = names;
+        if (!prefix.isEmpty()) {
+            String from = key(prefix);
+            matches = names.subMap(from, true, from + Character.MAX_VALUE, false);
+        }
+        List<String> completions = new ArrayList<>(Math.min(limit, 16));
+        for (String name : matches.values()) {
+            if (completions.size() >= limit) {
+                break;
+            }
+            completions.add(name);
+        }
+        return completions;
+    }
+
+    /**
+     * Get the number of indexed players
+     *
+     * @return number of online players
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Add joining players
+     *
+     * @param event the join event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        add(event.getPlayer().getName());
+    }
+
+    /**
+     * Remove leaving players
+     *
+     * @param event the quit event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        names.remove(key(event.getPlayer().getName()));
+    }
+
+    /**
+     * Stop listening and clear the index
+     */
+    @Override
+    public void close() {
+        HandlerList.unregisterAll(this);
+        names.clear();
+    }
+
+    private void add(String name) {
+        names.put(key(name), name);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.generic;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable view on a window of the original command argument array. Nested
+ * {@link de.headshotharp.plugin.base.command.CommandRegistry CommandRegistry}
+ * levels shift the view instead of copying the arguments.
+ */
+public final class Arguments {
+
+    private static final Arguments EMPTY = new Arguments(new String[0], 0, 0);
+
+    private final String[] args;
+    private final int offset;
+    private final int length;
+
+    private Arguments(String[] args, int offset, int length) {
+        this.args = args;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Create a view on all given arguments. The array is not copied.
+     *
+     * @param args the arguments
+     * @return view on the arguments
+     */
+    public static Arguments of(String... args) {
+        return args.length == 0 ? EMPTY : new Arguments(args, 0, args.length);
+    }
+
+    /**
+     * Get the number of arguments
+     *
+     * @return number of arguments
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Return true if there are no arguments
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Get the argument at the given index
+     *
+     * @param index index of the argument
+     * @return the argument
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public String get(int index) {
+        return args[offset + Objects.checkIndex(index, length)];
+    }
+
+    /**
+     * Get the argument at the given index or the default value if there are not
+     * enough arguments
+     *
+     * @param index        index of the argument
+     * @param defaultValue value returned if the argument is missing
+     * @return the argument or the default value
+     */
+    public String get(int index, String defaultValue) {
+        return index >= 0 && index < length ? args[offset + index] : defaultValue;
+    }
+
+    /**
+     * Get the argument at the given index as int
+     *
+     * @param index index of the argument
+     * @return the parsed argument
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws NumberFormatException     if the argument is not an int
+     */
+    public int getInt(int index) {
+        return Integer.parseInt(get(index));
+    }
+
+    /**
+     * Get the argument at the given index as int or the default value if the
+     * argument is missing or not an int
+     *
+     * @param index        index of the argument
+     * @param defaultValue value returned if the argument is missing or invalid
+     * @return the parsed argument or the default value
+     */
+    public int getInt(int index, int defaultValue) {
+        if (index < 0 || index >= length) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(args[offset + index]);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get the argument at the given index as long
+     *
+     * @param index index of the argument
+     * @return the parsed argument
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws NumberFormatException     if the argument is not a long
+     */
+    public long getLong(int index) {
+        return Long.parseLong(get(index));
+    }
+
+    /**
+     * Get the argument at the given index as double
+     *
+     * @param index index of the argument
+     * @return the parsed argument
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws NumberFormatException     if the argument is not a double
+     */
+    public double getDouble(int index) {
+        return Double.parseDouble(get(index));
+    }
+
+    /**
+     * Get the argument at the given index as boolean, true if the argument equals
+     * "true" ignoring case
+     *
+     * @param index index of the argument
+     * @return the parsed argument
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public boolean getBoolean(int index) {
+        return Boolean.parseBoolean(get(index));
+    }
+
+    /**
+     * Join all arguments starting at the given index with spaces, for example to
+     * get a message consisting of multiple words
+     *
+     * @param fromIndex index of the first joined argument
+     * @return joined arguments, empty if there are no arguments left
+     */
+    public String join(int fromIndex) {
+        if (fromIndex >= length) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(args[offset + fromIndex]);
+        for (int i = fromIndex + 1; i < length; i++) {
+            builder.append(' ').append(args[offset + i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Get a view without the first argument, used to pass the arguments to a
+     * subcommand
+     *
+     * @return view without the first argument
+     */
+    public Arguments shift() {
+        return from(1);
+    }
+
+    /**
+     * Get a view starting at the given index
+     *
+     * @param fromIndex index of the first argument of the new view
+     * @return view starting at the given index, empty if the index is out of range
+     */
+    public Arguments from(int fromIndex) {
+        if (fromIndex <= 0) {
+            return this;
+        }
+        if (fromIndex >= length) {
+            return EMPTY;
+        }
+        return new Arguments(args, offset + fromIndex, length - fromIndex);
+    }
+
+    /**
+     * Get a copy of the arguments as array
+     *
+     * @return arguments as array
+     */
+    public String[] toArray() {
+        return Arrays.copyOfRange(args, offset, offset + length);
+    }
+
+    @Override
+    public String toString() {
+        return "Arguments " + Arrays.toString(toArray());
+    }
+}
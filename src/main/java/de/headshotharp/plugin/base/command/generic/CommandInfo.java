@@ -0,0 +1,92 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.generic;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Metadata of a command, allowing a
+ * {@link de.headshotharp.plugin.base.command.CommandRegistry CommandRegistry}
+ * created in lazy mode to defer instantiating the command until it is first
+ * dispatched or completed, see
+ * {@link de.headshotharp.plugin.base.command.LazyCommand LazyCommand}. The
+ * values must match the values returned by the command itself, mismatches are
+ * logged when the command is instantiated.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CommandInfo {
+
+    /**
+     * Get the name of the command
+     *
+     * @return the command name
+     */
+    String name();
+
+    /**
+     * Get the aliases of the command
+     *
+     * @return aliases of the command, empty by default
+     */
+    String[] aliases() default {};
+
+    /**
+     * Get the usage of the command
+     *
+     * @return the usage, empty to ask the instantiated command
+     */
+    String usage() default "";
+
+    /**
+     * Check whether the command may only be executed by players
+     *
+     * @return true if the command is for players only, false by default
+     */
+    boolean playerOnly() default false;
+
+    /**
+     * Get the permission node required to execute the command
+     *
+     * @return the permission node, empty by default if no permission is required
+     */
+    String permission() default "";
+
+    /**
+     * Check whether tab completion of the command is thread-safe, see
+     * {@link ExecutableCommand#isTabCompletionAsyncSafe()}
+     *
+     * @return true if tab completion is thread-safe, false by default
+     */
+    boolean asyncTabCompletion() default false;
+
+    /**
+     * Get the time to cache async tab completion results, see
+     * {@link ExecutableCommand#getTabCompletionCacheTtl()}
+     *
+     * @return time to cache completions in milliseconds, zero by default
+     */
+    long tabCompletionCacheTtlMillis() default 0;
+}
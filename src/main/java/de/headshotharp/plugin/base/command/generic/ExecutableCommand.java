@@ -19,6 +19,8 @@
  */
 package de.headshotharp.plugin.base.command.generic;
 
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 
 import org.bukkit.Server;
@@ -29,6 +31,12 @@ import org.bukkit.command.PluginCommand;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import de.headshotharp.plugin.base.command.async.AsyncCommandExecutor;
+import de.headshotharp.plugin.base.command.completion.PlayerNameIndex;
+import de.headshotharp.plugin.base.command.incremental.IncrementalJob;
+import de.headshotharp.plugin.base.command.incremental.IncrementalScheduler;
+import de.headshotharp.plugin.base.command.ratelimit.RateLimit;
+
 /**
  * Abstract class to create bukkit commands for the
  * {@link de.headshotharp.plugin.base.command.CommandRegistry CommandRegistry}.
@@ -100,11 +108,157 @@ public abstract class ExecutableCommand<T extends JavaPlugin>
     public abstract String getName();
 
     /**
-     * Return true if the command is applicable
+     * Get the execution policy of the command. Override to return
+     * {@link ExecutionPolicy#ASYNC} to execute the command off the server thread.
+     *
+     * @return execution policy, {@link ExecutionPolicy#SYNC} by default
+     */
+    public ExecutionPolicy getExecutionPolicy() {
+        return ExecutionPolicy.SYNC;
+    }
+
+    /**
+     * Complete online player names from the plugin's {@link PlayerNameIndex}
+     *
+     * @param prefix the name typed so far
+     * @return matching player names in alphabetical order
+     */
+    protected List<String> completePlayerNames(String prefix) {
+        return PlayerNameIndex.of(plugin).complete(prefix);
+    }
+
+    /**
+     * Process the given work units on the server thread across ticks under the
+     * tick budget of the plugin's {@link IncrementalScheduler}, reporting progress
+     * to the sender. Use for long running work which must access the Bukkit API.
+     *
+     * @param sender the sender receiving progress messages
+     * @param name   the job name shown in progress messages
+     * @param work   the work units
+     * @return the job, to cancel or await it
+     */
+    protected IncrementalJob runIncrementally(CommandSender sender, String name, Iterator<? extends Runnable> work) {
+        return IncrementalScheduler.of(plugin).submit(sender, name, work);
+    }
+
+    /**
+     * Get the permission node required to execute the command, checked by the
+     * {@link de.headshotharp.plugin.base.command.CommandRegistry CommandRegistry}
+     * before execution. Commands the sender lacks the permission for are hidden
+     * from tab completion. Must return the same permission on every call.
+     *
+     * @return the permission node, null by default if no permission is required
+     */
+    public String getPermission() {
+        return null;
+    }
+
+    /**
+     * Get the rate limit of the command, enforced by the
+     * {@link de.headshotharp.plugin.base.command.CommandRegistry CommandRegistry}
+     * before execution. Must return the same limit on every call.
+     *
+     * @return rate limit, {@link RateLimit#NONE} by default
+     */
+    public RateLimit getRateLimit() {
+        return RateLimit.NONE;
+    }
+
+    /**
+     * Return true if {@link #onTabComplete(CommandSender, String, Arguments)} may
+     * be called off the server thread, for example because it only reads
+     * thread-safe data. Such commands are completed in Paper's async tab complete
+     * event, see
+     * {@link de.headshotharp.plugin.base.command.async.AsyncTabCompleter
+     * AsyncTabCompleter}.
+     *
+     * @return true if tab completion is thread-safe, false by default
+     */
+    public boolean isTabCompletionAsyncSafe() {
+        return false;
+    }
+
+    /**
+     * Get the time to cache async tab completion results of this command, keyed
+     * by the sender name and the typed arguments. Only used if
+     * {@link #isTabCompletionAsyncSafe()} is true.
+     *
+     * @return time to cache completions, zero to disable caching (default)
+     */
+    public Duration getTabCompletionCacheTtl() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * Get the aliases of the command. Aliases are matched case-insensitive just
+     * like the name.
+     *
+     * @return aliases of the command, empty by default
+     */
+    public List<String> getAliases() {
+        return List.of();
+    }
+
+    /**
+     * Return true if the command is applicable. By default the command applies if
+     * the given command equals the name or any alias ignoring case.<br />
+     * Commands keeping this default are dispatched by a lookup table inside the
+     * {@link de.headshotharp.plugin.base.command.CommandRegistry
+     * CommandRegistry}, overriding this method falls back to an ordered scan.
      */
     @Override
     public boolean isApplicable(CommandSender sender, String command, String... args) {
-        return command.equalsIgnoreCase(getName());
+        if (command.equalsIgnoreCase(getName())) {
+            return true;
+        }
+        for (String alias : getAliases()) {
+            if (command.equalsIgnoreCase(alias)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return true if the command is applicable, called with a view on the
+     * arguments. Delegates to
+     * {@link #isApplicable(CommandSender, String, String...)} by default.
+     *
+     * @param sender  the command sender
+     * @param command the base command
+     * @param args    the arguments to the given command
+     * @return true if the command applies
+     */
+    public boolean isApplicable(CommandSender sender, String command, Arguments args) {
+        return isApplicable(sender, command, args.toArray());
+    }
+
+    /**
+     * Execute the command with a view on the arguments. Delegates to
+     * {@link #execute(CommandSender, String, String...)} by default, which copies
+     * the arguments if they are a window of a larger array. Override to access the
+     * arguments without copying.
+     *
+     * @param sender  command sender
+     * @param command command to execute
+     * @param args    arguments to given command
+     * @return true if command succeeded
+     */
+    public boolean execute(CommandSender sender, String command, Arguments args) {
+        return execute(sender, command, args.toArray());
+    }
+
+    /**
+     * Complete tab requests with a view on the arguments. Delegates to
+     * {@link #onTabComplete(CommandSender, String, String...)} by default.
+     *
+     * @param sender  command sender
+     * @param command given command
+     * @param args    arguments to given command
+     * @return returns a list of tab completions
+     */
+    public List<String> onTabComplete(CommandSender sender, String command, Arguments args) {
+        return onTabComplete(sender, command, args.toArray());
     }
 
     /**
@@ -112,7 +266,11 @@ public abstract class ExecutableCommand<T extends JavaPlugin>
      */
     @Override
     public boolean onCommand(CommandSender sender, Command bukkitCommand, String label, String[] originalArgs) {
-        return execute(sender, bukkitCommand.getName(), originalArgs);
+        if (getExecutionPolicy() == ExecutionPolicy.ASYNC) {
+            AsyncCommandExecutor.of(plugin).execute(sender, this, bukkitCommand.getName(), Arguments.of(originalArgs));
+            return true;
+        }
+        return execute(sender, bukkitCommand.getName(), Arguments.of(originalArgs));
     }
 
     /**
@@ -120,6 +278,6 @@ public abstract class ExecutableCommand<T extends JavaPlugin>
      */
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
-        return onTabComplete(sender, command.getName(), args);
+        return onTabComplete(sender, command.getName(), Arguments.of(args));
     }
 }
@@ -0,0 +1,41 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.generic;
+
+/**
+ * Defines on which thread
+ * {@link ExecutableCommand#execute(org.bukkit.command.CommandSender, String, Arguments)
+ * execute} is called.
+ */
+public enum ExecutionPolicy {
+
+    /**
+     * Execute on the calling thread, which is the server thread for commands
+     */
+    SYNC,
+
+    /**
+     * Execute on the bounded executor of the plugin, see
+     * {@link de.headshotharp.plugin.base.command.async.AsyncCommandExecutor
+     * AsyncCommandExecutor}. Bukkit API calls must be handed to the server thread
+     * by {@link de.headshotharp.plugin.base.command.async.MainThread MainThread}.
+     */
+    ASYNC
+}
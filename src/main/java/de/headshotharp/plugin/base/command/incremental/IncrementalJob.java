@@ -0,0 +1,183 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.incremental;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Long running work split into units, which are processed on the server thread
+ * across ticks by the {@link IncrementalScheduler}. The completion future
+ * completes with the number of processed units, or exceptionally if the job
+ * failed or was cancelled.
+ */
+public class IncrementalJob {
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private final String name;
+    private final CommandSender sender;
+    private final Iterator<? extends Runnable> work;
+    private final long total;
+    private final long progressIntervalNanos;
+    private final long startNanos = System.nanoTime();
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+    private volatile boolean cancelled;
+    private volatile long processed;
+    private long nextProgressNanos;
+
+    IncrementalJob(String name, CommandSender sender, Iterator<? extends Runnable> work, long total,
+            long progressIntervalNanos) {
+        this.name = name;
+        this.sender = sender;
+        this.work = work;
+        this.total = total;
+        this.progressIntervalNanos = progressIntervalNanos;
+        this.nextProgressNanos = startNanos + progressIntervalNanos;
+    }
+
+    /**
+     * Cancel the job, it is stopped before the next unit
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check whether the job finished, failed or was cancelled
+     *
+     * @return true if the job is done
+     */
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * Get the number of processed units
+     *
+     * @return processed units
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Get the total number of units
+     *
+     * @return total units or -1 if unknown
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the name of the job shown in progress messages
+     *
+     * @return the job name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the sender receiving progress messages
+     *
+     * @return the command sender
+     */
+    public CommandSender getSender() {
+        return sender;
+    }
+
+    /**
+     * Get the future completed with the number of processed units
+     *
+     * @return completion future
+     */
+    public CompletableFuture<Long> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Process units until the deadline passed or the work is exhausted. Called on
+     * the server thread only.
+     *
+     * @param deadline {@link System#nanoTime()} to stop at
+     * @return true if the job is done
+     */
+    boolean step(long deadline) {
+        if (cancelled) {
+            sender.sendMessage(ChatColor.YELLOW + name + " cancelled after " + processed + " units");
+            completion.cancel(false);
+            return true;
+        }
+        long count = processed;
+        try {
+            do {
+                if (!work.hasNext()) {
+                    processed = count;
+                    finish();
+                    return true;
+                }
+                work.next().run();
+                count++;
+            } while (System.nanoTime() - deadline < 0 && !cancelled);
+        } catch (RuntimeException e) {
+            processed = count;
+            sender.sendMessage(ChatColor.DARK_RED + name + " failed after " + count + " units");
+            completion.completeExceptionally(e);
+            return true;
+        }
+        processed = count;
+        reportProgress();
+        return false;
+    }
+
+    /**
+     * Fail the job without processing further units
+     *
+     * @param message reason sent to the sender
+     */
+    void abort(String message) {
+        if (!completion.isDone()) {
+            sender.sendMessage(ChatColor.DARK_RED + name + ": " + message);
+            completion.cancel(false);
+        }
+    }
+
+    private void reportProgress() {
+        long now = System.nanoTime();
+        if (now - nextProgressNanos < 0) {
+            return;
+        }
+        nextProgressNanos = now + progressIntervalNanos;
+        String progress = total > 0 ? processed + "/" + total + " units (" + processed * 100 / total + "%)"
+                : processed + " units";
+        sender.sendMessage(ChatColor.GRAY + name + ": " + progress);
+    }
+
+    private void finish() {
+        long millis = (System.nanoTime() - startNanos) / NANOS_PER_MILLI;
+        sender.sendMessage(ChatColor.GREEN + name + " finished " + processed + " units in " + millis + "ms");
+        completion.complete(processed);
+    }
+}
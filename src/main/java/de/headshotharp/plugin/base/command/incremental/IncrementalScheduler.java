@@ -0,0 +1,233 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.incremental;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import de.headshotharp.plugin.base.PluginServices;
+
+/**
+ * Runs {@link IncrementalJob incremental jobs} on the server thread under a per
+ * tick time budget shared by all jobs of the plugin. Jobs take turns within a
+ * tick, so a single job cannot starve the others. The number of concurrently
+ * running jobs is bounded, further jobs are rejected with a message to the
+ * sender. Running jobs are cancelled when the plugin gets disabled.
+ */
+public class IncrementalScheduler implements AutoCloseable {
+
+    /**
+     * Default time per tick spent on jobs
+     */
+    public static final Duration DEFAULT_TICK_BUDGET = Duration.ofMillis(5);
+
+    /**
+     * Default maximum number of concurrently running jobs
+     */
+    public static final int DEFAULT_MAX_JOBS = 4;
+
+    /**
+     * Default time between two progress messages
+     */
+    public static final Duration DEFAULT_PROGRESS_INTERVAL = Duration.ofSeconds(5);
+
+    private final Plugin plugin;
+    private final long tickBudgetNanos;
+    private final int maxJobs;
+    private final long progressIntervalNanos;
+    private final List<IncrementalJob> jobs = new CopyOnWriteArrayList<>();
+    private BukkitTask task;
+    private boolean closed;
+    private int firstJob;
+
+    /**
+     * Create a scheduler
+     *
+     * @param plugin           the owning plugin
+     * @param tickBudget       time per tick spent on all jobs
+     * @param maxJobs          maximum number of concurrently running jobs
+     * @param progressInterval time between two progress messages of a job
+     */
+    public IncrementalScheduler(Plugin plugin, Duration tickBudget, int maxJobs, Duration progressInterval) {
+        this.plugin = plugin;
+        this.tickBudgetNanos = tickBudget.toNanos();
+        this.maxJobs = maxJobs;
+        this.progressIntervalNanos = progressInterval.toNanos();
+    }
+
+    /**
+     * Get the scheduler of the given plugin, created with default settings on
+     * first access
+     *
+     * @param plugin the plugin
+     * @return scheduler of the plugin
+     */
+    public static IncrementalScheduler of(Plugin plugin) {
+        return PluginServices.get(plugin, IncrementalScheduler.class,
+                p -> new IncrementalScheduler(p, DEFAULT_TICK_BUDGET, DEFAULT_MAX_JOBS, DEFAULT_PROGRESS_INTERVAL));
+    }
+
+    /**
+     * Configure the scheduler of the given plugin. Must be called before any job is
+     * submitted, for example in onEnable.
+     *
+     * @param plugin     the plugin
+     * @param tickBudget time per tick spent on all jobs
+     * @param maxJobs    maximum number of concurrently running jobs
+     * @return scheduler of the plugin
+     */
+    public static IncrementalScheduler configure(Plugin plugin, Duration tickBudget, int maxJobs) {
+        return PluginServices.register(plugin, IncrementalScheduler.class,
+                new IncrementalScheduler(plugin, tickBudget, maxJobs, DEFAULT_PROGRESS_INTERVAL));
+    }
+
+    /**
+     * Submit a job processing the given work units, may be called from any thread
+     *
+     * @param sender the sender receiving progress messages
+     * @param name   the job name shown in progress messages
+     * @param work   the work units, consumed on the server thread
+     * @return the job, already cancelled if rejected
+     */
+    public IncrementalJob submit(CommandSender sender, String name, Iterator<? extends Runnable> work) {
+        return submit(sender, name, work, -1);
+    }
+
+    /**
+     * Submit a job applying the given action to each item, may be called from any
+     * thread
+     *
+     * @param <E>    item type
+     * @param sender the sender receiving progress messages
+     * @param name   the job name shown in progress messages
+     * @param items  the items to process
+     * @param action the action applied to each item on the server thread
+     * @return the job, already cancelled if rejected
+     */
+    public <E> IncrementalJob submit(CommandSender sender, String name, Collection<E> items,
+            Consumer<? super E> action) {
+        Iterator<E> iterator = items.iterator();
+        return submit(sender, name, new Iterator<Runnable>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                E item = iterator.next();
+                return () -> action.accept(item);
+            }
+        }, items.size());
+    }
+
+    /**
+     * Submit a job processing the given work units, may be called from any thread
+     *
+     * @param sender the sender receiving progress messages
+     * @param name   the job name shown in progress messages
+     * @param work   the work units, consumed on the server thread
+     * @param total  number of work units for progress messages, -1 if unknown
+     * @return the job, already cancelled if rejected
+     */
+    public synchronized IncrementalJob submit(CommandSender sender, String name, Iterator<? extends Runnable> work,
+            long total) {
+        IncrementalJob job = new IncrementalJob(name, sender, work, total, progressIntervalNanos);
+        if (closed) {
+            job.abort("The plugin is disabled");
+        } else if (jobs.size() >= maxJobs) {
+            job.abort("Too many jobs are running, please try again later");
+        } else {
+            jobs.add(job);
+            if (task == null) {
+                task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1, 1);
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Get the running jobs
+     *
+     * @return unmodifiable list of running jobs
+     */
+    public List<IncrementalJob> getJobs() {
+        return Collections.unmodifiableList(jobs);
+    }
+
+    /**
+     * Cancel all running jobs
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (IncrementalJob job : jobs) {
+            job.abort("Cancelled, the plugin is disabled");
+        }
+        jobs.clear();
+        stopTask();
+    }
+
+    private void tick() {
+        Object[] active = jobs.toArray();
+        if (active.length == 0) {
+            stopIfIdle();
+            return;
+        }
+        long tickEnd = System.nanoTime() + tickBudgetNanos;
+        long slice = tickBudgetNanos / active.length;
+        // rotate the first job so every job gets the fresh budget in turn
+        firstJob = (firstJob + 1) % active.length;
+        for (int i = 0; i < active.length; i++) {
+            IncrementalJob job = (IncrementalJob) active[(firstJob + i) % active.length];
+            long now = System.nanoTime();
+            if (i > 0 && tickEnd - now <= 0) {
+                break;
+            }
+            long deadline = Math.min(now + slice, tickEnd);
+            if (job.step(deadline)) {
+                jobs.remove(job);
+            }
+        }
+        stopIfIdle();
+    }
+
+    private synchronized void stopIfIdle() {
+        if (jobs.isEmpty()) {
+            stopTask();
+        }
+    }
+
+    private void stopTask() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
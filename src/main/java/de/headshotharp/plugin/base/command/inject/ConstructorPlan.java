@@ -0,0 +1,138 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.inject;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Resolution plan for the single constructor of a class. Plans are computed
+ * once per class and shared by all {@link Injector injectors}, they hold the
+ * constructor parameter types and a spreading
+ * {@link java.lang.invoke.MethodHandle MethodHandle} to invoke the
+ * constructor. A factory generated by
+ * {@link java.lang.invoke.LambdaMetafactory LambdaMetafactory} is not worth
+ * it, commands are created only a few times and spinning a hidden class per
+ * command costs more than it saves, see InjectorBenchmark.
+ *
+ * @param <C> the constructed class
+ */
+public final class ConstructorPlan<C> {
+
+    private static final ClassValue<ConstructorPlan<?>> PLANS = new ClassValue<>() {
+        @Override
+        protected ConstructorPlan<?> computeValue(Class<?> type) {
+            return new ConstructorPlan<>(type);
+        }
+    };
+
+    private final Class<C> type;
+    private final Class<?>[] parameterTypes;
+    private final MethodHandle constructor;
+    private final IllegalAccessException accessError;
+
+    private ConstructorPlan(Class<C> type) {
+        this.type = type;
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        if (constructors.length != 1) {
+            throw new IllegalStateException("The class " + type.getSimpleName()
+                    + " must have exactly one constructor for auto-instantiation");
+        }
+        this.parameterTypes = constructors[0].getParameterTypes();
+        MethodHandle handle = null;
+        IllegalAccessException error = null;
+        try {
+            handle = MethodHandles.lookup().unreflectConstructor(constructors[0])
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            error = e;
+        }
+        this.constructor = handle;
+        this.accessError = error;
+    }
+
+    /**
+     * Get the shared plan of the given class
+     *
+     * @param <C>  the class to construct
+     * @param type the class to construct
+     * @return plan of the given class
+     * @throws IllegalStateException if the class has not exactly one constructor
+     */
+    @SuppressWarnings("unchecked") // plans are stored by their own type
+    public static <C> ConstructorPlan<C> of(Class<C> type) {
+        return (ConstructorPlan<C>) PLANS.get(type);
+    }
+
+    /**
+     * Get the constructed class
+     *
+     * @return constructed class
+     */
+    public Class<C> getType() {
+        return type;
+    }
+
+    /**
+     * Get the number of constructor parameters
+     *
+     * @return number of constructor parameters
+     */
+    public int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    /**
+     * Get the type of the given constructor parameter
+     *
+     * @param index index of the parameter
+     * @return type of the parameter
+     */
+    public Class<?> getParameterType(int index) {
+        return parameterTypes[index];
+    }
+
+    /**
+     * Invoke the constructor with the given, already resolved arguments
+     *
+     * @param args constructor arguments
+     * @return new instance
+     * @throws IllegalAccessException    thrown if the constructor is not accessible
+     * @throws InvocationTargetException thrown if the constructor throws an
+     *                                   exception, errors are rethrown as is
+     */
+    public C newInstance(Object[] args) throws IllegalAccessException, InvocationTargetException {
+        if (accessError != null) {
+            throw accessError;
+        }
+        try {
+            return type.cast((Object) constructor.invokeExact(args));
+        } catch (Error e) {
+            // errors like OutOfMemoryError must not be mistaken for constructor failures
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
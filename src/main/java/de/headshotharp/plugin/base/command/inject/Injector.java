@@ -0,0 +1,166 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.inject;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Small injection container to instantiate classes with exactly one
+ * constructor, for example commands found by the
+ * {@link de.headshotharp.plugin.base.command.CommandRegistry CommandRegistry}.
+ * Constructor parameters are resolved by exact type binding first, otherwise
+ * the single registered instance assignable to the parameter type is used, so
+ * interfaces and supertypes can be injected as well. Each class is resolved
+ * only once into an {@link InstanceFactory}.<br />
+ * The injector binds itself, so nested registries may receive it in their
+ * constructor and share all bindings and resolved factories.
+ */
+public class Injector {
+
+    private final Map<Class<?>, Object> bindings = new ConcurrentHashMap<>();
+    private final List<Object> instances = new CopyOnWriteArrayList<>();
+    private final Map<Class<?>, Object> resolved = new ConcurrentHashMap<>();
+    private final Map<Class<?>, InstanceFactory<?>> factories = new ConcurrentHashMap<>();
+
+    /**
+     * Create an injector providing the given instances by their class and all
+     * their supertypes
+     *
+     * @param instances injectable instances
+     */
+    public Injector(Object... instances) {
+        bind(Injector.class, this);
+        for (Object instance : instances) {
+            add(instance);
+        }
+    }
+
+    /**
+     * Add an injectable instance provided by its class and all its supertypes
+     *
+     * @param instance injectable instance
+     * @return this injector
+     */
+    public Injector add(Object instance) {
+        bindings.put(instance.getClass(), instance);
+        instances.add(instance);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Bind an instance to the given type explicitly. Explicit bindings win over
+     * supertype resolution.
+     *
+     * @param <I>      the bound type
+     * @param type     the bound type
+     * @param instance the injectable instance
+     * @return this injector
+     */
+    public <I> Injector bind(Class<I> type, I instance) {
+        bindings.put(type, instance);
+        instances.add(instance);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Get the instance injected for the given type
+     *
+     * @param <I>  the requested type
+     * @param type the requested type
+     * @return the injected instance or null if no instance is assignable to the
+     *         type
+     * @throws IllegalStateException if multiple instances are assignable to the
+     *                               type without explicit binding
+     */
+    public <I> I getInstance(Class<I> type) {
+        Object instance = bindings.get(type);
+        if (instance == null) {
+            instance = resolved.computeIfAbsent(type, this::resolveAssignable);
+        }
+        return type.isInstance(instance) ? type.cast(instance) : null;
+    }
+
+    /**
+     * Get the factory of the given class with all constructor arguments resolved
+     *
+     * @param <C>  the class to create
+     * @param type the class to create
+     * @return factory for the class
+     * @throws IllegalStateException if the class has not exactly one constructor
+     *                               or a parameter cannot be resolved
+     */
+    @SuppressWarnings("unchecked") // factories are stored by their own type
+    public <C> InstanceFactory<C> getFactory(Class<C> type) {
+        return (InstanceFactory<C>) factories.computeIfAbsent(type, this::createFactory);
+    }
+
+    /**
+     * Create a new instance of the given class
+     *
+     * @param <C>  the class to create
+     * @param type the class to create
+     * @return new instance
+     * @throws IllegalAccessException    thrown if the constructor is not accessible
+     * @throws InvocationTargetException thrown if the constructor throws
+     */
+    public <C> C create(Class<C> type) throws IllegalAccessException, InvocationTargetException {
+        return getFactory(type).create();
+    }
+
+    private <C> InstanceFactory<C> createFactory(Class<C> type) {
+        ConstructorPlan<C> plan = ConstructorPlan.of(type);
+        Object[] args = new Object[plan.getParameterCount()];
+        for (int i = 0; i < args.length; i++) {
+            Class<?> paramType = plan.getParameterType(i);
+            args[i] = getInstance(paramType);
+            if (args[i] == null) {
+                throw new IllegalStateException("The class " + type.getSimpleName()
+                        + " has an invalid constructor param type: " + paramType.getSimpleName());
+            }
+        }
+        return new InstanceFactory<>(plan, args);
+    }
+
+    private Object resolveAssignable(Class<?> type) {
+        Object match = null;
+        for (Object instance : instances) {
+            if (type.isInstance(instance) && instance != match) {
+                if (match != null) {
+                    throw new IllegalStateException("Multiple instances are injectable as "
+                            + type.getSimpleName() + ", bind one explicitly");
+                }
+                match = instance;
+            }
+        }
+        // cache misses as well, ConcurrentHashMap does not allow null values
+        return match != null ? match : this;
+    }
+
+    private void invalidate() {
+        resolved.clear();
+        factories.clear();
+    }
+}
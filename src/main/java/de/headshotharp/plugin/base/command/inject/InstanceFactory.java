@@ -0,0 +1,59 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.inject;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Precompiled factory creating instances of a class with the constructor
+ * arguments resolved once by an {@link Injector}.
+ *
+ * @param <C> the created class
+ */
+public final class InstanceFactory<C> {
+
+    private final ConstructorPlan<C> plan;
+    private final Object[] args;
+
+    InstanceFactory(ConstructorPlan<C> plan, Object[] args) {
+        this.plan = plan;
+        this.args = args;
+    }
+
+    /**
+     * Get the created class
+     *
+     * @return created class
+     */
+    public Class<C> getType() {
+        return plan.getType();
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @return new instance
+     * @throws IllegalAccessException    thrown if the constructor is not accessible
+     * @throws InvocationTargetException thrown if the constructor throws
+     */
+    public C create() throws IllegalAccessException, InvocationTargetException {
+        return plan.newInstance(args.clone());
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.metrics;
+
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+/**
+ * Receives latency and outcome of command executions and tab completions from
+ * the {@link de.headshotharp.plugin.base.command.CommandRegistry
+ * CommandRegistry}. Implementations are called on the hot path and must be
+ * thread-safe, lock-free and should not allocate.
+ */
+public interface CommandMetrics {
+
+    /**
+     * Metrics discarding all records, used by default
+     */
+    CommandMetrics NONE = new CommandMetrics() {
+        @Override
+        public void recordExecution(ExecutableCommand<?> command, long nanos, boolean success) {
+            // discard
+        }
+
+        @Override
+        public void recordCompletion(ExecutableCommand<?> command, long nanos) {
+            // discard
+        }
+    };
+
+    /**
+     * Record a command execution
+     *
+     * @param command the executed command
+     * @param nanos   execution time in nanoseconds
+     * @param success false if the command returned false or threw an exception
+     */
+    void recordExecution(ExecutableCommand<?> command, long nanos, boolean success);
+
+    /**
+     * Record a tab completion
+     *
+     * @param command the completed command
+     * @param nanos   completion time in nanoseconds
+     */
+    void recordCompletion(ExecutableCommand<?> command, long nanos);
+}
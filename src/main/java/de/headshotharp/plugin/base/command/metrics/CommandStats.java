@@ -0,0 +1,89 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of a single command
+ */
+public class CommandStats {
+
+    private final String name;
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram executions = new LatencyHistogram();
+    private final LatencyHistogram completions = new LatencyHistogram();
+
+    /**
+     * Create empty stats
+     *
+     * @param name name of the command
+     */
+    public CommandStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the name of the command
+     *
+     * @return name of the command
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of failed executions
+     *
+     * @return number of failed executions
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Get the execution latencies, the count equals the number of invocations
+     *
+     * @return execution latencies
+     */
+    public LatencyHistogram getExecutions() {
+        return executions;
+    }
+
+    /**
+     * Get the tab completion latencies
+     *
+     * @return tab completion latencies
+     */
+    public LatencyHistogram getCompletions() {
+        return completions;
+    }
+
+    void recordExecution(long nanos, boolean success) {
+        executions.record(nanos);
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    void recordCompletion(long nanos) {
+        completions.record(nanos);
+    }
+}
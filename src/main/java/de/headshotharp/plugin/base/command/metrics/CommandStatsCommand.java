@@ -0,0 +1,105 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+/**
+ * Subcommand printing the recorded {@link HistogramCommandMetrics}. Add it to
+ * the registry the metrics are set on, <code>stats reset</code> clears the
+ * stats. Requires the permission <code>&lt;plugin&gt;.stats</code> by default.
+ *
+ * @param <T> Base class of the implementing
+ *            {@link org.bukkit.plugin.java.JavaPlugin JavaPlugin}
+ */
+public class CommandStatsCommand<T extends JavaPlugin> extends ExecutableCommand<T> {
+
+    private final HistogramCommandMetrics metrics;
+    private final String permission;
+
+    /**
+     * Create the stats command requiring the permission
+     * <code>&lt;plugin&gt;.stats</code>, using the lowercase plugin name
+     *
+     * @param plugin  the base plugin
+     * @param metrics the metrics to print
+     */
+    public CommandStatsCommand(T plugin, HistogramCommandMetrics metrics) {
+        this(plugin, metrics, plugin.getName().toLowerCase(Locale.ROOT) + ".stats");
+    }
+
+    /**
+     * Create the stats command
+     *
+     * @param plugin     the base plugin
+     * @param metrics    the metrics to print
+     * @param permission the permission required to print or reset the stats
+     */
+    public CommandStatsCommand(T plugin, HistogramCommandMetrics metrics, String permission) {
+        super(plugin);
+        this.metrics = metrics;
+        this.permission = Objects.requireNonNull(permission, "permission");
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String command, String... args) {
+        if (args.length == 1 && args[0].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sender.sendMessage("Command stats reset");
+        } else {
+            for (String line : metrics.dump().split("\n")) {
+                sender.sendMessage(line);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+        return args.length == 1 && "reset".startsWith(args[0].toLowerCase()) ? List.of("reset") : List.of();
+    }
+
+    @Override
+    public boolean isForPlayerOnly() {
+        return false;
+    }
+
+    @Override
+    public String getPermission() {
+        return permission;
+    }
+
+    @Override
+    public String usage() {
+        return "/stats [reset]";
+    }
+
+    @Override
+    public String getName() {
+        return "stats";
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.metrics;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+/**
+ * Default {@link CommandMetrics} keeping {@link CommandStats} per command in
+ * memory
+ */
+public class HistogramCommandMetrics implements CommandMetrics {
+
+    private final Map<ExecutableCommand<?>, CommandStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordExecution(ExecutableCommand<?> command, long nanos, boolean success) {
+        statsOf(command).recordExecution(nanos, success);
+    }
+
+    @Override
+    public void recordCompletion(ExecutableCommand<?> command, long nanos) {
+        statsOf(command).recordCompletion(nanos);
+    }
+
+    /**
+     * Get the stats of all recorded commands
+     *
+     * @return stats of all recorded commands
+     */
+    public Collection<CommandStats> getStats() {
+        return stats.values();
+    }
+
+    /**
+     * Reset all stats
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Dump the stats of all commands as text, one line per command ordered by
+     * total execution time
+     *
+     * @return stats as text
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder(
+                "command: invocations / failures / mean / p50 / p99 / max | completions / p99");
+        stats.values().stream()
+                .sorted(Comparator.comparingLong((CommandStats s) -> s.getExecutions().getCount()
+                        * s.getExecutions().getMeanNanos()).reversed())
+                .forEach(s -> builder.append('\n').append(s.getName()).append(": ")
+                        .append(s.getExecutions().getCount()).append(" / ")
+                        .append(s.getFailures()).append(" / ")
+                        .append(millis(s.getExecutions().getMeanNanos())).append(" / ")
+                        .append(millis(s.getExecutions().getPercentileNanos(50))).append(" / ")
+                        .append(millis(s.getExecutions().getPercentileNanos(99))).append(" / ")
+                        .append(millis(s.getExecutions().getMaxNanos())).append(" | ")
+                        .append(s.getCompletions().getCount()).append(" / ")
+                        .append(millis(s.getCompletions().getPercentileNanos(99))));
+        return builder.toString();
+    }
+
+    private CommandStats statsOf(ExecutableCommand<?> command) {
+        CommandStats commandStats = stats.get(command);
+        if (commandStats == null) {
+            commandStats = stats.computeIfAbsent(command, c -> new CommandStats(c.getName()));
+        }
+        return commandStats;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000d);
+    }
+}
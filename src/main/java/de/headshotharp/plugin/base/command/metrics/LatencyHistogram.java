@@ -0,0 +1,112 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed exponential buckets. Bucket
+ * <code>i</code> counts values below <code>2^(i+1)</code> microseconds, so
+ * percentiles are accurate to a factor of two, which is enough to spot slow
+ * commands. Recording never allocates once the adders are inflated.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Create an empty histogram
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a value
+     *
+     * @param nanos value in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros | 1));
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Get the number of recorded values
+     *
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the mean of all recorded values
+     *
+     * @return mean in nanoseconds
+     */
+    public long getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+
+    /**
+     * Get the maximum recorded value
+     *
+     * @return maximum in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Get the upper bound of the bucket containing the given percentile
+     *
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the percentile in nanoseconds, capped at the maximum
+     */
+    public long getPercentileNanos(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(n * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= threshold) {
+                return Math.min((2L << i) * 1000, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+}
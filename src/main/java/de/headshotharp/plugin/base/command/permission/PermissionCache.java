@@ -0,0 +1,219 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.permission;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import de.headshotharp.plugin.base.PluginServices;
+
+/**
+ * Per player cache of permission checks used to filter command dispatch and
+ * tab completion, so permission trees are not evaluated again on every
+ * keystroke. Results of a player are dropped when the player joins, quits or
+ * changes the world and when the server resends the command list to the
+ * player, which happens whenever the permissions of a player are recalculated.
+ * Results additionally expire after a maximum age, as not all permission
+ * plugins trigger a recalculation. Other senders like the console are not
+ * cached.<br />
+ * The cache is safe to use from any thread. On a cache miss
+ * {@link Player#hasPermission(String)} is called on the calling thread, which
+ * is the async tab completion thread when completing with
+ * {@link de.headshotharp.plugin.base.command.async.AsyncTabCompleter
+ * AsyncTabCompleter}. Paper checks command permissions off the server thread
+ * in the same way and common permission plugins support it.
+ */
+public class PermissionCache implements Listener, AutoCloseable {
+
+    /**
+     * Default maximum age of cached results
+     */
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofSeconds(30);
+
+    private final Map<UUID, Permissions> players = new ConcurrentHashMap<>();
+    private final long maxAgeNanos;
+
+    /**
+     * Create a cache and register it as listener
+     *
+     * @param plugin the plugin registering the listener
+     * @param maxAge maximum age of cached results
+     */
+    public PermissionCache(Plugin plugin, Duration maxAge) {
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("The maximum age must be positive");
+        }
+        this.maxAgeNanos = maxAge.toNanos();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Get the cache of the given plugin, created with the default maximum age on
+     * first access
+     *
+     * @param plugin the plugin
+     * @return the permission cache
+     */
+    public static PermissionCache of(Plugin plugin) {
+        return PluginServices.get(plugin, PermissionCache.class, p -> new PermissionCache(p, DEFAULT_MAX_AGE));
+    }
+
+    /**
+     * Configure the cache of the given plugin. Must be called before the cache is
+     * first accessed, for example in onEnable.
+     *
+     * @param plugin the plugin
+     * @param maxAge maximum age of cached results
+     * @return the permission cache
+     */
+    public static PermissionCache configure(Plugin plugin, Duration maxAge) {
+        return PluginServices.register(plugin, PermissionCache.class, new PermissionCache(plugin, maxAge));
+    }
+
+    /**
+     * Check whether the sender has the given permission. Evaluates the permission
+     * on the calling thread if it is not cached.
+     *
+     * @param sender     the command sender
+     * @param permission the permission node, null or empty if no permission is
+     *                   required
+     * @return true if the sender has the permission
+     */
+    public boolean hasPermission(CommandSender sender, String permission) {
+        if (permission == null || permission.isEmpty()) {
+            return true;
+        }
+        if (!(sender instanceof Player player)) {
+            return sender.hasPermission(permission);
+        }
+        UUID id = player.getUniqueId();
+        long now = System.nanoTime();
+        Permissions permissions = players.get(id);
+        if (permissions == null || now - permissions.created > maxAgeNanos) {
+            permissions = new Permissions(now);
+            players.put(id, permissions);
+        }
+        Boolean result = permissions.results.get(permission);
+        if (result == null) {
+            result = player.hasPermission(permission);
+            permissions.results.put(permission, result);
+        }
+        return result;
+    }
+
+    /**
+     * Drop all cached results of the given player. Call this if a permission
+     * plugin notifies about changed permissions without the server resending the
+     * command list.
+     *
+     * @param player the player
+     */
+    public void invalidate(Player player) {
+        players.remove(player.getUniqueId());
+    }
+
+    /**
+     * Drop all cached results
+     */
+    public void invalidateAll() {
+        players.clear();
+    }
+
+    /**
+     * Get the number of players with cached results
+     *
+     * @return number of cached players
+     */
+    public int size() {
+        return players.size();
+    }
+
+    /**
+     * Drop stale results of joining players
+     *
+     * @param event the join event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    /**
+     * Drop results of leaving players
+     *
+     * @param event the quit event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    /**
+     * Drop results of players changing the world, permissions may be per world
+     *
+     * @param event the world change event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    /**
+     * Drop results of players whose permissions were recalculated, the server
+     * then resends the available commands
+     *
+     * @param event the command send event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerCommandSend(PlayerCommandSendEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    /**
+     * Clear the cache
+     */
+    @Override
+    public void close() {
+        players.clear();
+    }
+
+    private static final class Permissions {
+
+        private final long created;
+        private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+
+        private Permissions(long created) {
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import de.headshotharp.plugin.base.command.CommandIndex;
+
+/**
+ * Annotation processor writing an index of all concrete
+ * {@link de.headshotharp.plugin.base.command.generic.ExecutableCommand
+ * ExecutableCommand} implementations to {@link CommandIndex#INDEX_RESOURCE}.
+ * The {@link de.headshotharp.plugin.base.command.CommandRegistry
+ * CommandRegistry} reads this index instead of scanning the classpath.<br />
+ * The processor is registered as service and therefore picked up
+ * automatically by javac when this library is on the compile classpath.
+ */
+@SupportedAnnotationTypes("*")
+public class CommandIndexProcessor extends AbstractProcessor {
+
+    private static final String COMMAND_CLASS = "de.headshotharp.plugin.base.command.generic.ExecutableCommand";
+
+    private final Set<String> commandClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement commandType = processingEnv.getElementUtils().getTypeElement(COMMAND_CLASS);
+        if (commandType == null) {
+            return false;
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        } else {
+            TypeMirror commandMirror = processingEnv.getTypeUtils().erasure(commandType.asType());
+            for (Element element : roundEnv.getRootElements()) {
+                collect(element, commandMirror);
+            }
+        }
+        return false;
+    }
+
+    private void collect(Element element, TypeMirror commandMirror) {
+        if (element.getKind() != ElementKind.CLASS) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        if (!type.getModifiers().contains(Modifier.ABSTRACT)
+                && processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()),
+                        commandMirror)) {
+            commandClasses.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getModifiers().contains(Modifier.STATIC)) {
+                collect(enclosed, commandMirror);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        // keep entries of classes not recompiled in an incremental build
+        readExistingIndex();
+        if (commandClasses.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    CommandIndex.INDEX_RESOURCE);
+            try (Writer writer = index.openWriter()) {
+                for (String commandClass : commandClasses) {
+                    writer.write(commandClass);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write command index: " + e.getMessage());
+        }
+    }
+
+    private void readExistingIndex() {
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    CommandIndex.INDEX_RESOURCE);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                reader.lines().map(String::trim)
+                        .filter(line -> !line.isEmpty()
+                                && processingEnv.getElementUtils().getTypeElement(line.replace('$', '.')) != null)
+                        .forEach(commandClasses::add);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // no previous index
+        }
+    }
+}
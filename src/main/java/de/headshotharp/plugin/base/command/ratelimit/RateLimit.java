@@ -0,0 +1,104 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Declares how often a command may be executed, either as cooldown or as token
+ * bucket. Limits apply per sender unless made {@link #global()}.
+ */
+public final class RateLimit {
+
+    /**
+     * No rate limit
+     */
+    public static final RateLimit NONE = new RateLimit(0, 0, false);
+
+    private final long intervalNanos;
+    private final int burst;
+    private final boolean global;
+
+    private RateLimit(long intervalNanos, int burst, boolean global) {
+        this.intervalNanos = intervalNanos;
+        this.burst = burst;
+        this.global = global;
+    }
+
+    /**
+     * Allow one execution per cooldown
+     *
+     * @param cooldown time between two executions
+     * @return the rate limit
+     */
+    public static RateLimit cooldown(Duration cooldown) {
+        return tokenBucket(1, cooldown);
+    }
+
+    /**
+     * Allow bursts of up to capacity executions, refilling one token per interval
+     *
+     * @param capacity       maximum number of tokens
+     * @param refillInterval time to refill one token
+     * @return the rate limit
+     */
+    public static RateLimit tokenBucket(int capacity, Duration refillInterval) {
+        if (capacity < 1 || refillInterval.isNegative() || refillInterval.isZero()) {
+            throw new IllegalArgumentException("Capacity and refill interval must be positive");
+        }
+        return new RateLimit(refillInterval.toNanos(), capacity, false);
+    }
+
+    /**
+     * Get this rate limit shared by all senders
+     *
+     * @return the global rate limit
+     */
+    public RateLimit global() {
+        return new RateLimit(intervalNanos, burst, true);
+    }
+
+    /**
+     * Get the time to refill one token
+     *
+     * @return refill interval in nanoseconds
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Get the maximum number of executions in a burst
+     *
+     * @return the bucket capacity
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Check whether all senders share this limit
+     *
+     * @return true if global
+     */
+    public boolean isGlobal() {
+        return global;
+    }
+}
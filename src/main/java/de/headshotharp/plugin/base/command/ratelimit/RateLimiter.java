@@ -0,0 +1,129 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+/**
+ * Enforces a {@link RateLimit} using the generic cell rate algorithm. Each key
+ * only stores the theoretical arrival time of its next execution in an
+ * {@link AtomicLong}, updated by compare and set. Keys whose bucket is full again
+ * carry no information and are swept periodically, so the map only holds
+ * recently active senders.
+ */
+public class RateLimiter {
+
+    private static final Object GLOBAL_KEY = new Object();
+    private static final long MIN_SWEEP_INTERVAL_NANOS = 30_000_000_000L;
+
+    private final RateLimit rateLimit;
+    private final long toleranceNanos;
+    private final long sweepIntervalNanos;
+    private final Map<Object, AtomicLong> arrivals = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    /**
+     * Create a limiter
+     *
+     * @param rateLimit the rate limit to enforce
+     */
+    public RateLimiter(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+        this.toleranceNanos = rateLimit.getIntervalNanos() * (rateLimit.getBurst() - 1);
+        this.sweepIntervalNanos = Math.max(MIN_SWEEP_INTERVAL_NANOS, toleranceNanos + rateLimit.getIntervalNanos());
+        this.nextSweep = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+    }
+
+    /**
+     * Try to take a token for the given sender. Players are identified by their
+     * unique id, other senders by name.
+     *
+     * @param sender the command sender
+     * @return 0 if permitted, otherwise the nanoseconds until the next token
+     */
+    public long tryAcquire(CommandSender sender) {
+        Object key;
+        if (rateLimit.isGlobal()) {
+            key = GLOBAL_KEY;
+        } else if (sender instanceof Entity entity) {
+            key = entity.getUniqueId();
+        } else {
+            key = sender.getName();
+        }
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    /**
+     * Try to take a token for the given key
+     *
+     * @param key the rate limit key
+     * @param now current {@link System#nanoTime()}
+     * @return 0 if permitted, otherwise the nanoseconds until the next token
+     */
+    public long tryAcquire(Object key, long now) {
+        sweep(now);
+        AtomicLong arrival = arrivals.get(key);
+        if (arrival == null) {
+            arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long theoreticalArrival = arrival.get();
+            long start = theoreticalArrival - now > 0 ? theoreticalArrival : now;
+            long wait = start - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(theoreticalArrival, start + rateLimit.getIntervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Get the number of tracked keys
+     *
+     * @return number of keys with a partially drained bucket
+     */
+    public int size() {
+        return arrivals.size();
+    }
+
+    /**
+     * Get the enforced rate limit
+     *
+     * @return the rate limit
+     */
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now - next < 0 || !nextSweep.compareAndSet(next, now + sweepIntervalNanos)) {
+            return;
+        }
+        arrivals.values().removeIf(arrival -> arrival.get() - now <= 0);
+    }
+}
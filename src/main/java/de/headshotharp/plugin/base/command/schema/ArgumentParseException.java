@@ -0,0 +1,39 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+/**
+ * Thrown if a command argument cannot be parsed. The message is shown to the
+ * command sender.
+ */
+public class ArgumentParseException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Create an exception with a message for the sender
+     *
+     * @param message the message shown to the sender
+     */
+    public ArgumentParseException(String message) {
+        // no stack trace, the message is all the sender needs
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bukkit.command.CommandSender;
+
+import de.headshotharp.plugin.base.command.generic.Arguments;
+
+/**
+ * Declarative, typed arguments of a command. The schema is validated and
+ * compiled once into a flat parser chain, which is used for both execution and
+ * tab completion.
+ */
+public final class ArgumentSchema {
+
+    private final Parameter<?>[] parameters;
+    private final int required;
+    private final boolean greedy;
+    private final String usage;
+
+    private ArgumentSchema(Parameter<?>[] parameters) {
+        this.parameters = parameters;
+        int requiredCount = 0;
+        StringBuilder usageBuilder = new StringBuilder();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter<?> parameter = parameters[i];
+            if (!names.add(parameter.getName())) {
+                throw new IllegalArgumentException("Duplicate parameter " + parameter.getName());
+            }
+            if (parameter.getType().isGreedy() && i < parameters.length - 1) {
+                throw new IllegalArgumentException("Greedy parameter " + parameter.getName() + " must be the last");
+            }
+            if (parameter.isOptional()) {
+                usageBuilder.append(" [").append(parameter.getName()).append(']');
+            } else if (requiredCount < i) {
+                throw new IllegalArgumentException(
+                        "Required parameter " + parameter.getName() + " must not follow optional parameters");
+            } else {
+                requiredCount++;
+                usageBuilder.append(" <").append(parameter.getName()).append('>');
+            }
+        }
+        this.required = requiredCount;
+        this.greedy = parameters.length > 0 && parameters[parameters.length - 1].getType().isGreedy();
+        this.usage = usageBuilder.toString().trim();
+    }
+
+    /**
+     * Compile a schema of the given parameters. Optional parameters must follow
+     * required ones, a greedy parameter must be the last.
+     *
+     * @param parameters the parameters in argument order
+     * @return the schema
+     * @throws IllegalArgumentException if the parameters are not valid
+     */
+    public static ArgumentSchema of(Parameter<?>... parameters) {
+        return new ArgumentSchema(parameters.clone());
+    }
+
+    /**
+     * Parse the given arguments
+     *
+     * @param sender the command sender
+     * @param args   the arguments
+     * @return the parsed values
+     * @throws ArgumentParseException if arguments are missing, surplus or invalid
+     */
+    public ParsedArguments parse(CommandSender sender, Arguments args) throws ArgumentParseException {
+        int size = args.size();
+        if (size < required) {
+            throw new ArgumentParseException("Missing argument <" + parameters[size].getName() + ">");
+        }
+        if (size > parameters.length && !greedy) {
+            throw new ArgumentParseException("Too many arguments");
+        }
+        Object[] values = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter<?> parameter = parameters[i];
+            if (i >= size) {
+                values[i] = parameter.getDefaultValue();
+            } else if (parameter.getType().isGreedy()) {
+                values[i] = parameter.getType().parse(sender, args.join(i));
+            } else {
+                values[i] = parameter.getType().parse(sender, args.get(i));
+            }
+        }
+        return new ParsedArguments(this, values);
+    }
+
+    /**
+     * Complete the last of the given arguments
+     *
+     * @param sender the command sender
+     * @param args   the arguments, the last one is being typed
+     * @return the completions
+     */
+    public List<String> complete(CommandSender sender, Arguments args) {
+        int index = Math.max(0, args.size() - 1);
+        if (index >= parameters.length) {
+            if (!greedy) {
+                return List.of();
+            }
+            index = parameters.length - 1;
+        }
+        return parameters[index].getType().complete(sender, args.get(args.size() - 1, ""));
+    }
+
+    /**
+     * Get the usage of the arguments, e.g. <code>&lt;player&gt; [amount]</code>
+     *
+     * @return the usage
+     */
+    public String getUsage() {
+        return usage;
+    }
+
+    /**
+     * Get the parameters
+     *
+     * @return the parameters in argument order
+     */
+    public List<Parameter<?>> getParameters() {
+        return List.of(parameters);
+    }
+
+    int indexOf(Parameter<?> parameter) {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] == parameter) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Parameter " + parameter.getName() + " is not part of the schema");
+    }
+
+    int indexOf(String name) {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].getName().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Parameter " + name + " is not part of the schema");
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+import java.util.List;
+
+import org.bukkit.command.CommandSender;
+
+/**
+ * Parses and completes a single command argument. Implementations precompute
+ * everything possible on creation, see {@link ArgumentTypes}.
+ *
+ * @param <V> the parsed value type
+ */
+public interface ArgumentType<V> {
+
+    /**
+     * Parse the given argument
+     *
+     * @param sender the command sender
+     * @param input  the argument, all remaining arguments for greedy types
+     * @return the parsed value
+     * @throws ArgumentParseException if the argument is invalid
+     */
+    V parse(CommandSender sender, String input) throws ArgumentParseException;
+
+    /**
+     * Get completions of the given argument prefix
+     *
+     * @param sender the command sender
+     * @param prefix the argument typed so far
+     * @return the completions, empty by default
+     */
+    default List<String> complete(CommandSender sender, String prefix) {
+        return List.of();
+    }
+
+    /**
+     * Check whether the argument consumes all remaining arguments
+     *
+     * @return true if greedy, false by default
+     */
+    default boolean isGreedy() {
+        return false;
+    }
+
+    /**
+     * Describe the expected argument for error messages, e.g. "a number between 1
+     * and 64"
+     *
+     * @return the description
+     */
+    String getDescription();
+}
@@ -0,0 +1,338 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import de.headshotharp.plugin.base.command.completion.PlayerNameIndex;
+
+/**
+ * Common {@link ArgumentType argument types}
+ */
+public final class ArgumentTypes {
+
+    private static final ArgumentType<Boolean> BOOLEAN = new ChoiceType<>("true or false",
+            Map.of("true", Boolean.TRUE, "false", Boolean.FALSE));
+
+    private static final ArgumentType<String> WORD = new ArgumentType<>() {
+        @Override
+        public String parse(CommandSender sender, String input) {
+            return input;
+        }
+
+        @Override
+        public String getDescription() {
+            return "a word";
+        }
+    };
+
+    private static final ArgumentType<String> GREEDY_STRING = new ArgumentType<>() {
+        @Override
+        public String parse(CommandSender sender, String input) {
+            return input;
+        }
+
+        @Override
+        public boolean isGreedy() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return "a text";
+        }
+    };
+
+    private static final ArgumentType<Player> ONLINE_PLAYER = new ArgumentType<>() {
+        @Override
+        public Player parse(CommandSender sender, String input) throws ArgumentParseException {
+            Player player = sender.getServer().getPlayerExact(input);
+            if (player == null) {
+                throw invalid(input, this);
+            }
+            return player;
+        }
+
+        @Override
+        public List<String> complete(CommandSender sender, String prefix) {
+            List<String> completions = new ArrayList<>();
+            for (Player player : sender.getServer().getOnlinePlayers()) {
+                if (startsWithIgnoreCase(player.getName(), prefix)) {
+                    completions.add(player.getName());
+                }
+            }
+            return completions;
+        }
+
+        @Override
+        public String getDescription() {
+            return "an online player";
+        }
+    };
+
+    private static final ArgumentType<World> WORLD = new ArgumentType<>() {
+        @Override
+        public World parse(CommandSender sender, String input) throws ArgumentParseException {
+            World world = sender.getServer().getWorld(input);
+            if (world == null) {
+                throw invalid(input, this);
+            }
+            return world;
+        }
+
+        @Override
+        public List<String> complete(CommandSender sender, String prefix) {
+            List<String> completions = new ArrayList<>();
+            for (World world : sender.getServer().getWorlds()) {
+                if (startsWithIgnoreCase(world.getName(), prefix)) {
+                    completions.add(world.getName());
+                }
+            }
+            return completions;
+        }
+
+        @Override
+        public String getDescription() {
+            return "a world";
+        }
+    };
+
+    private ArgumentTypes() {
+    }
+
+    /**
+     * Any integer
+     *
+     * @return the argument type
+     */
+    public static ArgumentType<Integer> integer() {
+        return integer(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * An integer within the given bounds
+     *
+     * @param min minimum value, inclusive
+     * @param max maximum value, inclusive
+     * @return the argument type
+     */
+    public static ArgumentType<Integer> integer(int min, int max) {
+        String description = min == Integer.MIN_VALUE && max == Integer.MAX_VALUE ? "a number"
+                : "a number between " + min + " and " + max;
+        return new ArgumentType<>() {
+            @Override
+            public Integer parse(CommandSender sender, String input) throws ArgumentParseException {
+                try {
+                    int value = Integer.parseInt(input);
+                    if (value >= min && value <= max) {
+                        return value;
+                    }
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+                throw invalid(input, this);
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+
+    /**
+     * A decimal number within the given bounds
+     *
+     * @param min minimum value, inclusive
+     * @param max maximum value, inclusive
+     * @return the argument type
+     */
+    public static ArgumentType<Double> decimal(double min, double max) {
+        String description = "a decimal number between " + min + " and " + max;
+        return new ArgumentType<>() {
+            @Override
+            public Double parse(CommandSender sender, String input) throws ArgumentParseException {
+                try {
+                    double value = Double.parseDouble(input);
+                    if (value >= min && value <= max) {
+                        return value;
+                    }
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+                throw invalid(input, this);
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+
+    /**
+     * <code>true</code> or <code>false</code>, ignoring case
+     *
+     * @return the argument type
+     */
+    public static ArgumentType<Boolean> bool() {
+        return BOOLEAN;
+    }
+
+    /**
+     * A single argument as is
+     *
+     * @return the argument type
+     */
+    public static ArgumentType<String> word() {
+        return WORD;
+    }
+
+    /**
+     * All remaining arguments joined by spaces
+     *
+     * @return the argument type
+     */
+    public static ArgumentType<String> greedyString() {
+        return GREEDY_STRING;
+    }
+
+    /**
+     * A constant of the given enum, ignoring case
+     *
+     * @param <E>      the enum type
+     * @param enumType the enum class
+     * @return the argument type
+     */
+    public static <E extends Enum<E>> ArgumentType<E> enumeration(Class<E> enumType) {
+        Map<String, E> constants = new HashMap<>();
+        for (E constant : enumType.getEnumConstants()) {
+            constants.put(constant.name().toLowerCase(Locale.ROOT), constant);
+        }
+        return new ChoiceType<>("one of " + String.join(", ", constants.keySet().stream().sorted().toList()),
+                constants);
+    }
+
+    /**
+     * An online player by exact name, completed by iterating the online players.
+     * Prefer {@link #onlinePlayer(Plugin)} on busy servers.
+     *
+     * @return the argument type
+     */
+    public static ArgumentType<Player> onlinePlayer() {
+        return ONLINE_PLAYER;
+    }
+
+    /**
+     * An online player by exact name, completed from the plugin's
+     * {@link PlayerNameIndex}
+     *
+     * @param plugin the plugin owning the index
+     * @return the argument type
+     */
+    public static ArgumentType<Player> onlinePlayer(Plugin plugin) {
+        PlayerNameIndex index = PlayerNameIndex.of(plugin);
+        return new ArgumentType<>() {
+            @Override
+            public Player parse(CommandSender sender, String input) throws ArgumentParseException {
+                return ONLINE_PLAYER.parse(sender, input);
+            }
+
+            @Override
+            public List<String> complete(CommandSender sender, String prefix) {
+                return index.complete(prefix);
+            }
+
+            @Override
+            public String getDescription() {
+                return ONLINE_PLAYER.getDescription();
+            }
+        };
+    }
+
+    /**
+     * A loaded world by name
+     *
+     * @return the argument type
+     */
+    public static ArgumentType<World> world() {
+        return WORLD;
+    }
+
+    static ArgumentParseException invalid(String input, ArgumentType<?> type) {
+        return new ArgumentParseException("'" + input + "' is not " + type.getDescription());
+    }
+
+    static boolean startsWithIgnoreCase(String value, String prefix) {
+        return value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /**
+     * Fixed set of choices, completed from a sorted array
+     */
+    private static class ChoiceType<V> implements ArgumentType<V> {
+
+        private final String description;
+        private final Map<String, V> choices;
+        private final String[] sortedNames;
+
+        ChoiceType(String description, Map<String, V> choices) {
+            this.description = description;
+            this.choices = Map.copyOf(choices);
+            this.sortedNames = choices.keySet().toArray(new String[0]);
+            Arrays.sort(sortedNames);
+        }
+
+        @Override
+        public V parse(CommandSender sender, String input) throws ArgumentParseException {
+            V value = choices.get(input.toLowerCase(Locale.ROOT));
+            if (value == null) {
+                throw invalid(input, this);
+            }
+            return value;
+        }
+
+        @Override
+        public List<String> complete(CommandSender sender, String prefix) {
+            List<String> completions = new ArrayList<>();
+            for (String name : sortedNames) {
+                if (startsWithIgnoreCase(name, prefix)) {
+                    completions.add(name);
+                }
+            }
+            return completions;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+    }
+}
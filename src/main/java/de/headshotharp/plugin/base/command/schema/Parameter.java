@@ -0,0 +1,102 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+/**
+ * A named, typed argument of an {@link ArgumentSchema}. Keep parameters in
+ * constants to read their values type-safe from {@link ParsedArguments}.
+ *
+ * @param <V> the parsed value type
+ */
+public final class Parameter<V> {
+
+    private final String name;
+    private final ArgumentType<V> type;
+    private final boolean optional;
+    private final V defaultValue;
+
+    private Parameter(String name, ArgumentType<V> type, boolean optional, V defaultValue) {
+        this.name = name;
+        this.type = type;
+        this.optional = optional;
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * Create a required parameter
+     *
+     * @param <V>  the parsed value type
+     * @param name the parameter name shown in the usage
+     * @param type the argument type
+     * @return the parameter
+     */
+    public static <V> Parameter<V> required(String name, ArgumentType<V> type) {
+        return new Parameter<>(name, type, false, null);
+    }
+
+    /**
+     * Create an optional parameter
+     *
+     * @param <V>          the parsed value type
+     * @param name         the parameter name shown in the usage
+     * @param type         the argument type
+     * @param defaultValue the value if the argument is missing
+     * @return the parameter
+     */
+    public static <V> Parameter<V> optional(String name, ArgumentType<V> type, V defaultValue) {
+        return new Parameter<>(name, type, true, defaultValue);
+    }
+
+    /**
+     * Get the parameter name
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the argument type
+     *
+     * @return the type
+     */
+    public ArgumentType<V> getType() {
+        return type;
+    }
+
+    /**
+     * Check whether the argument may be omitted
+     *
+     * @return true if optional
+     */
+    public boolean isOptional() {
+        return optional;
+    }
+
+    /**
+     * Get the value used if the argument is omitted
+     *
+     * @return the default value
+     */
+    public V getDefaultValue() {
+        return defaultValue;
+    }
+}
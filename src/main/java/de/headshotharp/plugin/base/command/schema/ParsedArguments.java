@@ -0,0 +1,80 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+/**
+ * Values parsed by an {@link ArgumentSchema}. Omitted optional arguments hold
+ * the parameter's default value.
+ */
+public final class ParsedArguments {
+
+    private final ArgumentSchema schema;
+    private final Object[] values;
+
+    ParsedArguments(ArgumentSchema schema, Object[] values) {
+        this.schema = schema;
+        this.values = values;
+    }
+
+    /**
+     * Get the value of the given parameter
+     *
+     * @param <V>       the value type
+     * @param parameter the parameter of the schema
+     * @return the parsed value
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Parameter<V> parameter) {
+        return (V) values[schema.indexOf(parameter)];
+    }
+
+    /**
+     * Get the value of the parameter with the given name
+     *
+     * @param <V>  the value type
+     * @param name the parameter name
+     * @return the parsed value
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String name) {
+        return (V) values[schema.indexOf(name)];
+    }
+
+    /**
+     * Get the value at the given position
+     *
+     * @param <V>   the value type
+     * @param index the parameter index
+     * @return the parsed value
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(int index) {
+        return (V) values[index];
+    }
+
+    /**
+     * Get the number of parameters
+     *
+     * @return number of values
+     */
+    public int size() {
+        return values.length;
+    }
+}
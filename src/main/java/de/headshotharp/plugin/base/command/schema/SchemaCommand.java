@@ -0,0 +1,113 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+import java.util.List;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+/**
+ * Command with declarative, typed arguments. Arguments are parsed by the
+ * {@link ArgumentSchema} given on creation before
+ * {@link #execute(CommandSender, String, ParsedArguments)} is called, invalid
+ * arguments are reported to the sender instead of the usage. Tab completion is
+ * derived from the schema.
+ *
+ * @param <T> Plugin class
+ */
+public abstract class SchemaCommand<T extends JavaPlugin> extends ExecutableCommand<T> {
+
+    private final ArgumentSchema schema;
+
+    /**
+     * Create a command with the given argument schema
+     *
+     * @param plugin the plugin
+     * @param schema the argument schema
+     */
+    protected SchemaCommand(T plugin, ArgumentSchema schema) {
+        super(plugin);
+        this.schema = schema;
+    }
+
+    /**
+     * Execute the command with parsed arguments
+     *
+     * @param sender  the command sender
+     * @param command the command name
+     * @param args    the parsed arguments
+     * @return false to show the usage to the sender
+     */
+    public abstract boolean execute(CommandSender sender, String command, ParsedArguments args);
+
+    @Override
+    public final boolean execute(CommandSender sender, String command, String... args) {
+        return execute(sender, command, Arguments.of(args));
+    }
+
+    @Override
+    public final boolean execute(CommandSender sender, String command, Arguments args) {
+        ParsedArguments parsed;
+        try {
+            parsed = schema.parse(sender, args);
+        } catch (ArgumentParseException e) {
+            sender.sendMessage(ChatColor.RED + e.getMessage());
+            // the error already tells what is wrong, do not send the usage as well
+            return true;
+        }
+        return execute(sender, command, parsed);
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+        return onTabComplete(sender, command, Arguments.of(args));
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String command, Arguments args) {
+        return schema.complete(sender, args);
+    }
+
+    /**
+     * Get the usage derived from name and schema, e.g.
+     * <code>/give &lt;player&gt; [amount]</code>
+     *
+     * @return command usage as string
+     */
+    @Override
+    public String usage() {
+        String parameters = schema.getUsage();
+        return parameters.isEmpty() ? "/" + getName() : "/" + getName() + " " + parameters;
+    }
+
+    /**
+     * Get the argument schema
+     *
+     * @return the schema
+     */
+    public ArgumentSchema getSchema() {
+        return schema;
+    }
+}
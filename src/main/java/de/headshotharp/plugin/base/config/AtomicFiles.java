@@ -0,0 +1,148 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Crash-safe file writes. Content is written to a temporary file in the same
+ * directory, synced to disk and then atomically renamed to the target, so the
+ * target always contains either the old or the new content. Replaced files keep
+ * their POSIX permissions, new files get the default permissions of the
+ * process.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Replace the content of the given file atomically
+     *
+     * @param target  the file to write
+     * @param content the new content
+     * @throws IOException if writing fails, the target is left untouched
+     */
+    static void write(Path target, byte[] content) throws IOException {
+        write(target, channel -> {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        });
+    }
+
+    /**
+     * Replace the content of the given file atomically with streamed content
+     *
+     * @param target the file to write
+     * @param writer writes the new content to the given channel
+     * @throws IOException if writing fails, the target is left untouched
+     */
+    static void write(Path target, ContentWriter writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = createTempFile(directory, target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer.write(channel);
+                channel.force(true);
+            }
+            copyPermissions(target, temp);
+            move(temp, target);
+            syncDirectory(directory);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Atomically replace the target by the given, already written file
+     *
+     * @param source the written file
+     * @param target the file to replace
+     * @throws IOException if moving fails
+     */
+    static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes file content
+     */
+    @FunctionalInterface
+    interface ContentWriter {
+
+        /**
+         * Write the content to the given channel, which must not be closed
+         *
+         * @param channel the temporary file
+         * @throws IOException if writing fails
+         */
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private static Path createTempFile(Path directory, Path target) throws IOException {
+        // unlike Files.createTempFile, respect the umask instead of owner-only access
+        while (true) {
+            String suffix = Long.toUnsignedString(ThreadLocalRandom.current().nextLong());
+            Path temp = directory.resolve(target.getFileName() + "." + suffix + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // try another name
+            }
+        }
+    }
+
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        try {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        } catch (NoSuchFileException e) {
+            // new file, keep the default permissions
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        // persist the rename, not supported on every platform
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Binary sidecar of a config file. Stores the parsed document tree as Smile,
+ * stamped with size, modification time and hash of the source file. The tree is
+ * bound to the config class on every load, so changes of the config class never
+ * invalidate the snapshot.
+ */
+final class BinarySnapshot {
+
+    private static final int MAGIC = 0x48485342;
+    private static final int VERSION = 1;
+
+    private final ObjectMapper mapper = ConfigMappers.smile();
+    private final Path file;
+
+    BinarySnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the snapshot if it matches the given source file
+     *
+     * @param size         size of the source file
+     * @param lastModified modification time of the source file
+     * @param hash         hash of the source file content
+     * @return the stored tree or null if missing or stale
+     */
+    JsonNode read(long size, long lastModified, byte[] hash) {
+        try (InputStream in = Files.newInputStream(file); DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != MAGIC || data.readInt() != VERSION || data.readLong() != size
+                    || data.readLong() != lastModified) {
+                return null;
+            }
+            byte[] storedHash = new byte[data.readUnsignedByte()];
+            data.readFully(storedHash);
+            if (!Arrays.equals(storedHash, hash)) {
+                return null;
+            }
+            return mapper.readTree(data);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // corrupt or truncated, rebuilt by the caller
+            return null;
+        }
+    }
+
+    /**
+     * Replace the snapshot
+     *
+     * @param tree         the document tree of the source file
+     * @param size         size of the source file
+     * @param lastModified modification time of the source file
+     * @param hash         hash of the source file content
+     * @throws IOException if writing fails
+     */
+    void write(JsonNode tree, long size, long lastModified, byte[] hash) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(size);
+        data.writeLong(lastModified);
+        data.writeByte(hash.length);
+        data.write(hash);
+        mapper.writeValue((OutputStream) data, tree);
+        AtomicFiles.write(file, out.toByteArray());
+    }
+
+    /**
+     * Get the snapshot file
+     *
+     * @return the snapshot file
+     */
+    Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+/**
+ * Listener notified when the config of a {@link ConfigService} changed, for
+ * example because the file was edited and reloaded by the file watcher.
+ *
+ * @param <T> Configuration class
+ */
+@FunctionalInterface
+public interface ConfigChangeListener<T> {
+
+    /**
+     * Called after a new config snapshot was loaded. Called on the watcher thread
+     * for file changes, use the server scheduler to call the Bukkit API.
+     *
+     * @param oldConfig copy of the previous snapshot, null if there was none
+     * @param newConfig copy of the new snapshot
+     */
+    public void onConfigChange(T oldConfig, T newConfig);
+}
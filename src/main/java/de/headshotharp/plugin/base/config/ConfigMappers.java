@@ -0,0 +1,98 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+/**
+ * Mappers shared by all config services, so serializers are created and cached
+ * once per config class instead of once per service. If Jackson Blackbird is on
+ * the classpath it is registered to replace reflection with generated accessors.
+ * Config services pre-warm their config class on creation.
+ */
+public final class ConfigMappers {
+
+    private static final Logger LOGGER = Logger.getLogger(ConfigMappers.class.getName());
+    private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+    private static final ObjectMapper YAML = accelerate(new YAMLMapper());
+    private static final ObjectMapper SMILE = accelerate(new SmileMapper());
+
+    private ConfigMappers() {
+    }
+
+    /**
+     * Get the shared mapper for YAML config files
+     *
+     * @return the shared YAML mapper, must not be reconfigured
+     */
+    static ObjectMapper yaml() {
+        return YAML;
+    }
+
+    /**
+     * Get the shared mapper for binary config snapshots
+     *
+     * @return the shared Smile mapper, must not be reconfigured
+     */
+    static ObjectMapper smile() {
+        return SMILE;
+    }
+
+    /**
+     * Create and cache the serializer and deserializer of the given class. Call
+     * during plugin enable so the first read or save is not paying for it.
+     *
+     * @param type the config class
+     */
+    public static void prewarm(Class<?> type) {
+        JavaType javaType = YAML.constructType(type);
+        YAML.canSerialize(type);
+        YAML.canDeserialize(javaType);
+    }
+
+    /**
+     * Check whether bytecode accelerated data binding is active
+     *
+     * @return true if Blackbird is registered
+     */
+    public static boolean isAccelerated() {
+        return YAML.getRegisteredModuleIds().contains(BLACKBIRD_MODULE);
+    }
+
+    private static ObjectMapper accelerate(ObjectMapper mapper) {
+        try {
+            Class<?> moduleClass = Class.forName(BLACKBIRD_MODULE, true, ConfigMappers.class.getClassLoader());
+            mapper.registerModule((Module) moduleClass.getConstructor().newInstance());
+        } catch (ClassNotFoundException e) {
+            // optional dependency not present
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.log(Level.WARNING, "Could not register " + BLACKBIRD_MODULE, e);
+        }
+        return mapper;
+    }
+}
@@ -21,23 +21,89 @@ package de.headshotharp.plugin.base.config;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+
+import de.headshotharp.plugin.base.profiling.StartupProfiler;
+import de.headshotharp.plugin.base.profiling.StartupProfiler.Phase;
 
 /**
  * Simple service class to save and load config files in YAML/YML format. Simple
- * POJO class must be given as configuration class.
- *
+ * POJO class must be given as configuration class.<br />
+ * The last read or saved config is kept as in-memory snapshot, a parsed tree
+ * bound to a fresh config object by {@link #getConfig()} and
+ * {@link #readConfig()}. Callers and change listeners may modify the returned
+ * objects without affecting the snapshot. {@link #watch()} reloads the snapshot
+ * in the background whenever the file changes on disk.<br />
+ * Files are written crash-safe by writing a temporary file and renaming it.
+ * Writes are skipped if the serialized content did not change.
+ * {@link #saveConfigAsync(Object)} coalesces rapid saves into a single write
+ * on a writer thread of this service, call {@link #close()} on plugin disable
+ * to persist pending writes and stop the writer.<br />
+ * Large configs can keep a binary snapshot next to the config file using
+ * {@link #setBinarySnapshot(boolean)}, which is used instead of parsing the
+ * YAML file as long as the file is unchanged.<br />
+ * Single sections of large configs can be read, iterated and written in a
+ * streaming fashion without binding the whole file, see
+ * {@link #readSection(String, Class)}.
  *
  * @param <T> Configuration class
  */
-public class ConfigService<T> {
+public class ConfigService<T> implements AutoCloseable {
 
-    private final ObjectMapper mapper = new YAMLMapper();
+    private static final Logger LOGGER = Logger.getLogger(ConfigService.class.getName());
+    private static final long WATCH_DEBOUNCE_MILLIS = 100;
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 60;
+
+    private final ObjectMapper mapper = ConfigMappers.yaml();
     private final Class<T> configClass;
     private final File configFile;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final List<ConfigChangeListener<T>> listeners = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private final Object pendingLock = new Object();
+    private volatile WatchService watchService;
+    private Thread watchThread;
+    private ScheduledThreadPoolExecutor writer;
+    private boolean closed;
+    private PendingWrite pendingWrite;
+    private CompletableFuture<Void> lastFailedWrite;
+    private volatile BinarySnapshot binarySnapshot;
+    private Duration writeBehindDelay = Duration.ofMillis(250);
+    private byte[] lastWrittenHash;
+    private FileStamp lastWrittenStamp;
 
     /**
      * Creates a config service for the given config class. Uses the plugin name to
@@ -53,7 +119,8 @@ public class ConfigService<T> {
     /**
      * Creates a config service for the given config class and given file. The file
      * is relative to the papermc root folder. It is advised to create a folder per
-     * plugin inside the servers plugins folder.<br />
+     * plugin inside the servers plugins folder. The serializers of the config class
+     * are created right away, so create the service during plugin enable.<br />
      * Example:
      * <code>Paths.get("plugins", pluginName, "my-config-file.yml").toFile()</code>
      *
@@ -63,27 +130,297 @@ public class ConfigService<T> {
     public ConfigService(Class<T> configClass, File configFile) {
         this.configClass = configClass;
         this.configFile = configFile;
+        ConfigMappers.prewarm(configClass);
+    }
+
+    /**
+     * Get a copy of the current config snapshot without any I/O. The config is
+     * read from disk on first access only.
+     *
+     * @return copy of the current config snapshot
+     * @throws IOException may throw IOException on first access
+     */
+    public T getConfig() throws IOException {
+        Snapshot current = snapshot.get();
+        return current != null ? mapper.treeToValue(current.tree(), configClass) : readConfig();
     }
 
     /**
-     * Read config from disk.
+     * Get a copy of the current config snapshot, reading the file only if it
+     * changed on disk since the snapshot was read or saved. Without
+     * {@link #watch()} this costs a single file stat, while watching the snapshot
+     * is copied without any I/O.
      *
      * @return loaded config file as pojo
      * @throws IOException may throw IOException
      */
     public T readConfig() throws IOException {
-        return mapper.readValue(configFile, configClass);
+        Snapshot current = snapshot.get();
+        // a null stamp marks a pending asynchronous write, which wins over the file
+        if (current != null && (watchService != null || current.stamp() == null
+                || current.stamp().equals(FileStamp.of(configFile)))) {
+            return mapper.treeToValue(current.tree(), configClass);
+        }
+        return reload();
     }
 
     /**
-     * Save given config to disk.
+     * Read config from disk and replace the current snapshot, even if the file did
+     * not change.
+     *
+     * @return loaded config file as pojo
+     * @throws IOException may throw IOException
+     */
+    public T reload() throws IOException {
+        Phase phase = StartupProfiler.phase("config.read " + configFile.getName());
+        try (phase) {
+            FileStamp stamp = FileStamp.of(configFile);
+            byte[] content = Files.readAllBytes(configFile.toPath());
+            BinarySnapshot binary = binarySnapshot;
+            JsonNode tree = binary == null ? parse(content) : readTree(content, stamp, binary);
+            T config = mapper.treeToValue(tree, configClass);
+            update(new Snapshot(tree, stamp));
+            return config;
+        }
+    }
+
+    /**
+     * Save given config to disk and use it as current snapshot.
      *
      * @param config the config pojo to save
      * @throws IOException may throw IOException
      */
     public void saveConfig(T config) throws IOException {
-        configFile.getParentFile().mkdirs();
-        mapper.writeValue(configFile, config);
+        JsonNode tree = mapper.valueToTree(config);
+        update(new Snapshot(tree, write(tree)));
+    }
+
+    /**
+     * Use the given config as current snapshot and save it in the background.
+     * Saves within the write behind delay are coalesced into a single write of the
+     * latest config. The config is copied right away and may be modified after
+     * this call. After {@link #close()} the config is written on the calling
+     * thread.
+     *
+     * @param config the config pojo to save
+     * @return future completed when the config is durably written
+     */
+    public CompletableFuture<Void> saveConfigAsync(T config) {
+        JsonNode tree = mapper.valueToTree(config);
+        update(new Snapshot(tree, null));
+        synchronized (pendingLock) {
+            if (!closed) {
+                if (pendingWrite == null) {
+                    pendingWrite = new PendingWrite();
+                    writer().schedule(this::writePending, writeBehindDelay.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                pendingWrite.tree = tree;
+                return pendingWrite.future;
+            }
+        }
+        PendingWrite write = new PendingWrite();
+        write.tree = tree;
+        try {
+            write(write);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not write config " + configFile, e);
+        }
+        return write.future;
+    }
+
+    /**
+     * Write a pending asynchronous save immediately and wait for it
+     *
+     * @throws IOException if the pending write failed
+     */
+    public void flush() throws IOException {
+        ExecutorService executor;
+        synchronized (pendingLock) {
+            executor = writer;
+        }
+        flush(executor);
+    }
+
+    private void flush(ExecutorService executor) throws IOException {
+        try {
+            try {
+                if (executor == null) {
+                    writePending();
+                } else {
+                    // wait for a write already running on the writer thread
+                    executor.submit(this::writePending).get();
+                }
+            } catch (RejectedExecutionException e) {
+                // closed concurrently, nothing is scheduled anymore
+                writePending();
+            }
+            CompletableFuture<Void> failed;
+            synchronized (pendingLock) {
+                failed = lastFailedWrite;
+                lastFailedWrite = null;
+            }
+            if (failed != null) {
+                failed.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing " + configFile, e);
+        } catch (ExecutionException | CompletionException e) {
+            throw new IOException("Could not write " + configFile, e.getCause());
+        }
+    }
+
+    /**
+     * Read a single section of the config file without binding the whole file.
+     * Paths are dot separated field names, e.g. <code>shops.items</code>.
+     *
+     * @param <S>  section type
+     * @param path path of the section
+     * @param type section type
+     * @return the section or null if the path does not exist
+     * @throws IOException may throw IOException
+     */
+    public <S> S readSection(String path, Class<S> type) throws IOException {
+        try (JsonParser parser = openSection(path)) {
+            return parser == null ? null : mapper.readValue(parser, type);
+        }
+    }
+
+    /**
+     * Iterate the elements of a list section one at a time, only the current
+     * element is held in memory. The iterator must be closed.
+     *
+     * @param <S>  element type
+     * @param path path of the list section
+     * @param type element type
+     * @return iterator over the elements, empty if the path does not exist
+     * @throws IOException if the section is not a list
+     */
+    public <S> SectionIterator<S> iterateSection(String path, Class<S> type) throws IOException {
+        JsonParser parser = openSection(path);
+        if (parser != null && parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("Section " + path + " of " + configFile + " is not a list");
+        }
+        try {
+            return new SectionIterator<>(mapper, parser, type);
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replace a list section by the given elements, streaming the rest of the file
+     * unchanged. Missing sections are created. Pending asynchronous saves are
+     * written first and the current snapshot is reloaded afterwards.
+     *
+     * @param path     path of the list section
+     * @param elements the new elements, consumed while writing
+     * @throws IOException may throw IOException
+     */
+    public void writeSection(String path, Iterator<?> elements) throws IOException {
+        flush();
+        String[] segments = SectionStreams.split(path);
+        synchronized (writeLock) {
+            AtomicFiles.write(configFile.toPath(), channel -> {
+                try (JsonParser parser = configFile.isFile() ? mapper.createParser(configFile) : null;
+                        JsonGenerator generator = mapper.createGenerator(Channels.newOutputStream(channel))) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    SectionStreams.replace(mapper, parser, generator, segments, elements);
+                }
+            });
+            lastWrittenHash = null;
+            lastWrittenStamp = FileStamp.of(configFile);
+        }
+        if (snapshot.get() != null) {
+            reload();
+        }
+    }
+
+    /**
+     * Enable or disable the binary snapshot of this config. The snapshot is stored
+     * as Smile next to the config file with the suffix <code>.smile</code> and is
+     * rebuilt transparently whenever the config file changed.
+     *
+     * @param enabled whether to use a binary snapshot
+     */
+    public void setBinarySnapshot(boolean enabled) {
+        binarySnapshot = enabled ? new BinarySnapshot(Paths.get(configFile.getPath() + ".smile")) : null;
+    }
+
+    /**
+     * Set the time rapid asynchronous saves are coalesced
+     *
+     * @param writeBehindDelay delay of asynchronous writes, 250ms by default
+     */
+    public void setWriteBehindDelay(Duration writeBehindDelay) {
+        this.writeBehindDelay = writeBehindDelay;
+    }
+
+    /**
+     * Add a listener notified whenever a new snapshot is read or saved
+     *
+     * @param listener the listener
+     */
+    public void addChangeListener(ConfigChangeListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a previously added listener
+     *
+     * @param listener the listener
+     */
+    public void removeChangeListener(ConfigChangeListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Start watching the config file and reload the snapshot in the background
+     * whenever the file changes. Invalid files are logged and the previous
+     * snapshot is kept. Does nothing if already watching.
+     *
+     * @throws IOException if the watch service cannot be created
+     */
+    public synchronized void watch() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        Path directory = configFile.getAbsoluteFile().getParentFile().toPath();
+        directory.toFile().mkdirs();
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService service = watchService;
+        watchThread = new Thread(() -> watchLoop(service), "ConfigService-" + configFile.getName());
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Write pending asynchronous saves, stop the writer thread and stop watching
+     * the config file. Waits for a running reload to finish.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        ScheduledThreadPoolExecutor executor;
+        synchronized (pendingLock) {
+            closed = true;
+            executor = writer;
+            writer = null;
+        }
+        try {
+            flush(executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            if (watchService != null) {
+                watchService.close();
+                watchService = null;
+                stopWatchThread();
+            }
+        }
     }
 
     /**
@@ -94,4 +431,207 @@ public class ConfigService<T> {
     public File getConfigFile() {
         return configFile;
     }
+
+    private void stopWatchThread() throws IOException {
+        Thread thread = watchThread;
+        watchThread = null;
+        if (thread == Thread.currentThread()) {
+            // closed by a change listener, the loop ends with the watch service
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while stopping to watch " + configFile, e);
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        Path fileName = configFile.toPath().getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= fileName.equals(event.context());
+                    }
+                    key.reset();
+                    // editors write in multiple steps, wait until the file settled
+                    key = service.poll(WATCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                if (changed) {
+                    reloadIfChanged();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    private void reloadIfChanged() {
+        Snapshot current = snapshot.get();
+        // a null stamp marks a pending asynchronous write, which wins over the file
+        if (!configFile.isFile() || (current != null
+                && (current.stamp() == null || current.stamp().equals(FileStamp.of(configFile))))) {
+            return;
+        }
+        try {
+            reload();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not reload config " + configFile + ", keeping previous config", e);
+        }
+    }
+
+    private JsonParser openSection(String path) throws IOException {
+        JsonParser parser = mapper.createParser(configFile);
+        try {
+            if (parser.nextToken() != null && SectionStreams.navigate(parser, SectionStreams.split(path))) {
+                return parser;
+            }
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+        parser.close();
+        return null;
+    }
+
+    private JsonNode parse(byte[] content) throws IOException {
+        JsonNode tree = mapper.readTree(content);
+        if (tree.isMissingNode()) {
+            // empty file, fail the same way as binding the file directly
+            mapper.readValue(content, configClass);
+        }
+        return tree;
+    }
+
+    private JsonNode readTree(byte[] content, FileStamp stamp, BinarySnapshot binary) throws IOException {
+        byte[] hash = sha256(content);
+        JsonNode tree = binary.read(stamp.size(), stamp.lastModified(), hash);
+        if (tree == null) {
+            tree = parse(content);
+            writeSnapshot(binary, tree, stamp, hash);
+        }
+        return tree;
+    }
+
+    private void writeSnapshot(BinarySnapshot binary, JsonNode tree, FileStamp stamp, byte[] hash) {
+        try {
+            binary.write(tree, stamp.size(), stamp.lastModified(), hash);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write binary snapshot " + binary.getFile(), e);
+        }
+    }
+
+    private FileStamp write(JsonNode tree) throws IOException {
+        byte[] content = mapper.writeValueAsBytes(tree);
+        byte[] hash = sha256(content);
+        synchronized (writeLock) {
+            if (!Arrays.equals(hash, lastWrittenHash) || !FileStamp.of(configFile).equals(lastWrittenStamp)) {
+                AtomicFiles.write(configFile.toPath(), content);
+                lastWrittenHash = hash;
+                lastWrittenStamp = FileStamp.of(configFile);
+                BinarySnapshot binary = binarySnapshot;
+                if (binary != null) {
+                    writeSnapshot(binary, tree, lastWrittenStamp, hash);
+                }
+            }
+            return lastWrittenStamp;
+        }
+    }
+
+    private ScheduledExecutorService writer() {
+        if (writer == null) {
+            writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "ConfigService-writer-" + configFile.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // idle services do not keep a thread
+            writer.setKeepAliveTime(WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            writer.allowCoreThreadTimeOut(true);
+            // close writes pending saves itself
+            writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+        return writer;
+    }
+
+    private void writePending() {
+        PendingWrite write;
+        synchronized (pendingLock) {
+            write = pendingWrite;
+            pendingWrite = null;
+        }
+        if (write == null) {
+            return;
+        }
+        try {
+            write(write);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not write config " + configFile, e);
+            synchronized (pendingLock) {
+                lastFailedWrite = write.future;
+            }
+        }
+    }
+
+    private void write(PendingWrite write) throws IOException {
+        try {
+            FileStamp stamp = write(write.tree);
+            // attach the file stamp without notifying listeners again
+            Snapshot current = snapshot.get();
+            if (current != null && current.tree() == write.tree) {
+                snapshot.compareAndSet(current, new Snapshot(write.tree, stamp));
+            }
+            write.future.complete(null);
+        } catch (IOException | RuntimeException e) {
+            write.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private void update(Snapshot newSnapshot) {
+        Snapshot old = snapshot.getAndSet(newSnapshot);
+        if (listeners.isEmpty()) {
+            return;
+        }
+        // listeners get their own copies just like callers of getConfig
+        T oldConfig = old == null ? null : mapper.convertValue(old.tree(), configClass);
+        T newConfig = mapper.convertValue(newSnapshot.tree(), configClass);
+        for (ConfigChangeListener<T> listener : listeners) {
+            try {
+                listener.onConfigChange(oldConfig, newConfig);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Config change listener failed for " + configFile, e);
+            }
+        }
+    }
+
+    private record Snapshot(JsonNode tree, FileStamp stamp) {
+    }
+
+    private static class PendingWrite {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private JsonNode tree;
+    }
+
+    private record FileStamp(long size, long lastModified) {
+
+        static FileStamp of(File file) {
+            return new FileStamp(file.length(), file.lastModified());
+        }
+    }
 }
@@ -0,0 +1,512 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write-behind store of one YAML file per player. Data of joining players is
+ * loaded on the asynchronous pre-login thread and kept in memory from then on
+ * until they quit or their login is denied, so join, quit and updates do not
+ * touch the disk on the server thread.
+ * Modified data is written in batches by a background thread using atomic
+ * writes. Data of offline players is kept in a size bounded least recently used
+ * cache.<br />
+ * The owning plugin must call {@link #close()} at the end of onDisable, after
+ * saving the data of online players, to write all modified data. Bukkit fires
+ * the plugin disable event before onDisable, so the store cannot close itself.
+ * Data modified after closing is written on the calling thread.<br />
+ * Files are sharded into subdirectories by the first two characters of the
+ * UUID to keep directories small. Values must only be modified through
+ * {@link #update(UUID, Consumer)}, which synchronizes with the writer.
+ *
+ * @param <T> Class of the player data POJO
+ */
+public class PlayerDataStore<T> implements Listener, AutoCloseable {
+
+    /**
+     * Default maximum number of cached players
+     */
+    public static final int DEFAULT_MAX_CACHED = 1000;
+
+    /**
+     * Default delay between batches of writes
+     */
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(5);
+
+    private final Plugin plugin;
+    private final Path directory;
+    private final Class<T> dataClass;
+    private final Supplier<T> defaults;
+    private final int maxCached;
+    private final ObjectMapper mapper = ConfigMappers.yaml();
+    private final Map<UUID, Entry<T>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final ScheduledExecutorService writer;
+    private final Object flushLock = new Object();
+    private volatile boolean closed;
+
+    /**
+     * Create a store with default cache size and flush interval
+     *
+     * @param plugin    the owning plugin
+     * @param name      name of the directory in the plugin folder
+     * @param dataClass class of the player data
+     * @param defaults  creates the data of players without a file
+     */
+    public PlayerDataStore(Plugin plugin, String name, Class<T> dataClass, Supplier<T> defaults) {
+        this(plugin, name, dataClass, defaults, DEFAULT_MAX_CACHED, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Create a store and register it as listener
+     *
+     * @param plugin        the owning plugin
+     * @param name          name of the directory in the plugin folder
+     * @param dataClass     class of the player data
+     * @param defaults      creates the data of players without a file
+     * @param maxCached     maximum number of cached offline players, joining and
+     *                      online players and unwritten data are never evicted
+     * @param flushInterval delay between batches of writes
+     */
+    public PlayerDataStore(Plugin plugin, String name, Class<T> dataClass, Supplier<T> defaults, int maxCached,
+            Duration flushInterval) {
+        if (maxCached < 1) {
+            throw new IllegalArgumentException("The cache size must be positive");
+        }
+        this.plugin = plugin;
+        this.directory = plugin.getDataFolder().toPath().resolve(name);
+        this.dataClass = dataClass;
+        this.defaults = defaults;
+        this.maxCached = maxCached;
+        ConfigMappers.prewarm(dataClass);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, plugin.getName() + "-" + name + "-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushInterval.toMillis());
+        writer.scheduleWithFixedDelay(this::flushDirty, interval, interval, TimeUnit.MILLISECONDS);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * Get the data of the given player, reading it from disk if it is not cached.
+     * Data of online players is always cached.
+     *
+     * @param uuid the player UUID
+     * @return the player data
+     * @throws IOException if the file cannot be read
+     */
+    public T get(UUID uuid) throws IOException {
+        Entry<T> entry = getEntry(uuid);
+        return entry != null ? entry.value : load(uuid).value;
+    }
+
+    /**
+     * Get the data of the given player if it is cached
+     *
+     * @param uuid the player UUID
+     * @return the player data or null if it is not cached
+     */
+    public T getIfCached(UUID uuid) {
+        Entry<T> entry = getEntry(uuid);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Read the data of the given player into the cache on the background thread
+     *
+     * @param uuid the player UUID
+     * @return future completed with the player data
+     */
+    public CompletableFuture<T> preload(UUID uuid) {
+        T cached = getIfCached(uuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                future.complete(get(uuid));
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Modify the data of the given player and mark it to be written in the next
+     * batch, or write it right away if the store is closed
+     *
+     * @param uuid    the player UUID
+     * @param updater modifies the player data
+     * @throws IOException if the data was not cached and cannot be read
+     */
+    public void update(UUID uuid, Consumer<T> updater) throws IOException {
+        Entry<T> entry = acquire(uuid);
+        try {
+            synchronized (entry) {
+                updater.accept(entry.value);
+                entry.version++;
+                entry.dirty = true;
+            }
+        } finally {
+            synchronized (cache) {
+                entry.pins--;
+            }
+        }
+        writeIfClosed(uuid, entry);
+    }
+
+    /**
+     * Replace the data of the given player and mark it to be written in the next
+     * batch, or write it right away if the store is closed
+     *
+     * @param uuid the player UUID
+     * @param data the new player data
+     */
+    public void put(UUID uuid, T data) {
+        Entry<T> entry;
+        synchronized (cache) {
+            // replace the value in place, concurrent updates may hold the entry
+            entry = cache.computeIfAbsent(uuid, id -> new Entry<>(data));
+            entry.pins++;
+        }
+        try {
+            synchronized (entry) {
+                entry.value = data;
+                entry.version++;
+                entry.dirty = true;
+            }
+        } finally {
+            synchronized (cache) {
+                entry.pins--;
+                evict();
+            }
+        }
+        writeIfClosed(uuid, entry);
+    }
+
+    /**
+     * Write all modified data on the background thread, or on the calling thread
+     * if the store is closed
+     *
+     * @return future completed when the data is written
+     */
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(this::flushDirty, this::execute);
+    }
+
+    /**
+     * Get the number of cached players
+     *
+     * @return number of cached players
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Get the file the data of the given player is stored in
+     *
+     * @param uuid the player UUID
+     * @return the sharded player file
+     */
+    public Path getFile(UUID uuid) {
+        String id = uuid.toString();
+        return directory.resolve(id.substring(0, 2)).resolve(id + ".yml");
+    }
+
+    /**
+     * Load the data of players about to join off the server thread and keep it
+     * until they join or their login is denied
+     *
+     * @param event the pre-login event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        Entry<T> entry;
+        try {
+            entry = acquire(event.getUniqueId());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not load player data of " + event.getName(), e);
+            return;
+        }
+        synchronized (cache) {
+            entry.online = true;
+            entry.pins--;
+        }
+    }
+
+    /**
+     * Allow evicting the data of players whose login was denied
+     *
+     * @param event the login event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            setOnline(event.getPlayer().getUniqueId(), false);
+        }
+    }
+
+    /**
+     * Keep the data of joining players in the cache
+     *
+     * @param event the join event
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        setOnline(event.getPlayer().getUniqueId(), true);
+    }
+
+    /**
+     * Allow evicting the data of leaving players once it is written
+     *
+     * @param event the quit event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        setOnline(event.getPlayer().getUniqueId(), false);
+    }
+
+    /**
+     * Stop the background writer and write all modified data on the calling
+     * thread. Call at the end of onDisable.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        HandlerList.unregisterAll(this);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushDirty();
+    }
+
+    /**
+     * Run the task on the background writer, or on the calling thread once the
+     * store is closed
+     */
+    private void execute(Runnable task) {
+        if (!closed) {
+            try {
+                writer.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                // closed meanwhile
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * Write a modified entry right away if the store is closed. Checked after
+     * marking the entry dirty, so the entry is either written by close or here.
+     */
+    private void writeIfClosed(UUID uuid, Entry<T> entry) {
+        if (closed && entry.dirty) {
+            synchronized (flushLock) {
+                write(uuid, entry);
+            }
+        }
+    }
+
+    private Entry<T> getEntry(UUID uuid) {
+        synchronized (cache) {
+            return cache.get(uuid);
+        }
+    }
+
+    /**
+     * Get the cached entry or load it, pinned in the cache until released
+     */
+    private Entry<T> acquire(UUID uuid) throws IOException {
+        synchronized (cache) {
+            Entry<T> entry = cache.get(uuid);
+            if (entry != null) {
+                entry.pins++;
+                return entry;
+            }
+        }
+        return load(uuid, true);
+    }
+
+    private Entry<T> load(UUID uuid) throws IOException {
+        return load(uuid, false);
+    }
+
+    private Entry<T> load(UUID uuid, boolean pin) throws IOException {
+        T value;
+        try {
+            value = mapper.readValue(Files.readAllBytes(getFile(uuid)), dataClass);
+        } catch (NoSuchFileException e) {
+            value = defaults.get();
+        }
+        synchronized (cache) {
+            // another thread may have loaded or replaced the data meanwhile
+            Entry<T> entry = cache.get(uuid);
+            if (entry == null) {
+                entry = new Entry<>(value);
+                cache.put(uuid, entry);
+            }
+            if (pin) {
+                entry.pins++;
+            }
+            evict();
+            return entry;
+        }
+    }
+
+    private void setOnline(UUID uuid, boolean online) {
+        synchronized (cache) {
+            Entry<T> entry = cache.get(uuid);
+            if (entry != null) {
+                entry.online = online;
+            }
+            if (!online) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Remove least recently used entries of offline players without unwritten
+     * changes and not being updated until the cache fits its size. Players are
+     * online from pre-login on.
+     */
+    private void evict() {
+        Iterator<Entry<T>> entries = cache.values().iterator();
+        while (cache.size() > maxCached && entries.hasNext()) {
+            Entry<T> entry = entries.next();
+            if (!entry.online && !entry.dirty && entry.pins == 0) {
+                entries.remove();
+            }
+        }
+    }
+
+    private void flushDirty() {
+        synchronized (flushLock) {
+            List<Map.Entry<UUID, Entry<T>>> batch = new ArrayList<>();
+            synchronized (cache) {
+                for (Map.Entry<UUID, Entry<T>> entry : cache.entrySet()) {
+                    if (entry.getValue().dirty) {
+                        batch.add(Map.entry(entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+            for (Map.Entry<UUID, Entry<T>> item : batch) {
+                write(item.getKey(), item.getValue());
+            }
+            if (!batch.isEmpty()) {
+                synchronized (cache) {
+                    evict();
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the entry and mark it clean if it was not modified meanwhile. Entries
+     * stay dirty until written, so they cannot be evicted and read back stale.
+     */
+    private void write(UUID uuid, Entry<T> entry) {
+        byte[] content;
+        long version;
+        synchronized (entry) {
+            version = entry.version;
+            try {
+                content = mapper.writeValueAsBytes(entry.value);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not serialize player data of " + uuid, e);
+                return;
+            }
+        }
+        try {
+            AtomicFiles.write(getFile(uuid), content);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write player data of " + uuid + ", retrying later", e);
+            return;
+        }
+        synchronized (entry) {
+            if (entry.version == version) {
+                entry.dirty = false;
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+
+        // replaced under the entry lock, read without it
+        private volatile T value;
+        private long version;
+        private int pins;
+        private volatile boolean dirty;
+        private volatile boolean online;
+
+        private Entry(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lazily binds the elements of a list section one by one. Must be closed to
+ * release the underlying file.
+ *
+ * @param <S> element type
+ */
+public class SectionIterator<S> implements Iterator<S>, AutoCloseable {
+
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    private final Class<S> type;
+    private JsonToken next;
+
+    SectionIterator(ObjectMapper mapper, JsonParser parser, Class<S> type) throws IOException {
+        this.mapper = mapper;
+        this.parser = parser;
+        this.type = type;
+        this.next = parser == null ? JsonToken.END_ARRAY : parser.nextToken();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null && next != JsonToken.END_ARRAY;
+    }
+
+    @Override
+    public S next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            S element = mapper.readValue(parser, type);
+            next = parser.nextToken();
+            return element;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read section element", e);
+        }
+    }
+
+    /**
+     * Close the underlying file
+     *
+     * @throws IOException may throw IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            parser.close();
+        }
+    }
+}
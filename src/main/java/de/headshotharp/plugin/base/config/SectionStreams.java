@@ -0,0 +1,152 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Token level navigation and rewriting of config sections. Paths are dot
+ * separated field names, the empty path denotes the whole document.
+ */
+final class SectionStreams {
+
+    private SectionStreams() {
+    }
+
+    /**
+     * Split a section path into field names
+     *
+     * @param path dot separated path
+     * @return the field names
+     */
+    static String[] split(String path) {
+        return path.isEmpty() ? new String[0] : path.split("\\.");
+    }
+
+    /**
+     * Move the parser to the value at the given path. The parser must be
+     * positioned at the start of the document value.
+     *
+     * @param parser the parser
+     * @param path   the field names
+     * @return true if the parser is positioned at the value, false if not found
+     * @throws IOException may throw IOException
+     */
+    static boolean navigate(JsonParser parser, String[] path) throws IOException {
+        for (String segment : path) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            boolean found = false;
+            while (!found && parser.nextToken() == JsonToken.FIELD_NAME) {
+                found = segment.equals(parser.currentName());
+                parser.nextToken();
+                if (!found) {
+                    parser.skipChildren();
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the document from parser to generator and replace the value at the
+     * given path by a list of the given elements. Missing objects along the path
+     * are created.
+     *
+     * @param mapper    the mapper used to write elements
+     * @param parser    parser of the existing document or null to create one
+     * @param generator the generator of the new document
+     * @param path      the field names
+     * @param elements  the new list elements
+     * @throws IOException if the path is occupied by a value other than an object
+     */
+    static void replace(ObjectMapper mapper, JsonParser parser, JsonGenerator generator, String[] path,
+            Iterator<?> elements) throws IOException {
+        if (parser == null || parser.nextToken() == null) {
+            writeMissing(mapper, generator, path, 0, elements);
+        } else {
+            copy(mapper, parser, generator, path, 0, elements);
+        }
+    }
+
+    private static void copy(ObjectMapper mapper, JsonParser parser, JsonGenerator generator, String[] path,
+            int depth, Iterator<?> elements) throws IOException {
+        if (depth == path.length) {
+            parser.skipChildren();
+            writeList(mapper, generator, elements);
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Cannot write section " + String.join(".", path) + ", "
+                    + (depth == 0 ? "the document" : String.join(".", Arrays.copyOf(path, depth)))
+                    + " is not an object");
+        }
+        generator.writeStartObject();
+        boolean found = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            generator.writeFieldName(name);
+            parser.nextToken();
+            if (!found && path[depth].equals(name)) {
+                found = true;
+                copy(mapper, parser, generator, path, depth + 1, elements);
+            } else {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        if (!found) {
+            generator.writeFieldName(path[depth]);
+            writeMissing(mapper, generator, path, depth + 1, elements);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeMissing(ObjectMapper mapper, JsonGenerator generator, String[] path, int depth,
+            Iterator<?> elements) throws IOException {
+        for (int i = depth; i < path.length; i++) {
+            generator.writeStartObject();
+            generator.writeFieldName(path[i]);
+        }
+        writeList(mapper, generator, elements);
+        for (int i = depth; i < path.length; i++) {
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeList(ObjectMapper mapper, JsonGenerator generator, Iterator<?> elements)
+            throws IOException {
+        generator.writeStartArray();
+        while (elements.hasNext()) {
+            mapper.writeValue(generator, elements.next());
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.logging;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Hands log records to a background thread through a bounded buffer, so
+ * logging never blocks the calling thread on handlers. Records still buffered
+ * are published on {@link #close()}.
+ */
+public class AsyncLogDispatcher implements AutoCloseable {
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Logger logger;
+    private final BlockingQueue<LogRecord> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Create and start a dispatcher for the given logger
+     *
+     * @param logger         the logger to publish records to
+     * @param capacity       maximum number of buffered records
+     * @param overflowPolicy behaviour if the buffer is full
+     */
+    public AsyncLogDispatcher(Logger logger, int capacity, OverflowPolicy overflowPolicy) {
+        this.logger = logger;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.thread = new Thread(this::drain, logger.getName() + "-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Buffer the given record for publishing, logs synchronously once closed
+     *
+     * @param record the record to log
+     */
+    public void dispatch(LogRecord record) {
+        if (!running) {
+            logger.log(record);
+            return;
+        }
+        if (buffer.offer(record)) {
+            return;
+        }
+        switch (overflowPolicy) {
+        case DISCARD:
+            dropped.increment();
+            break;
+        case DISCARD_OLDEST:
+            while (!buffer.offer(record)) {
+                if (buffer.poll() != null) {
+                    dropped.increment();
+                }
+            }
+            break;
+        case CALLER_RUNS:
+        default:
+            logger.log(record);
+            break;
+        }
+    }
+
+    /**
+     * Get the number of records dropped due to overflow, which are not reported yet
+     *
+     * @return number of dropped records
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Publish all buffered records and stop the background thread
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (running || !buffer.isEmpty()) {
+                LogRecord record = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    publish(record);
+                }
+                long count = dropped.sumThenReset();
+                if (count > 0) {
+                    publish(new LogRecord(Level.WARNING, "Dropped " + count + " log records, log buffer is full"));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(LogRecord record) {
+        try {
+            logger.log(record);
+        } catch (RuntimeException e) {
+            // a failing handler must not stop the dispatcher
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.logging;
+
+/**
+ * Formats messages with <code>{}</code> placeholders
+ */
+public final class LogFormat {
+
+    private static final String PLACEHOLDER = "{}";
+
+    private LogFormat() {
+    }
+
+    /**
+     * Replace each <code>{}</code> by the next argument. Surplus placeholders are
+     * kept, surplus arguments are ignored.
+     *
+     * @param pattern the message pattern
+     * @param args    the arguments
+     * @return the formatted message
+     */
+    public static String format(String pattern, Object... args) {
+        if (pattern == null || args == null || args.length == 0) {
+            return pattern;
+        }
+        StringBuilder builder = new StringBuilder(pattern.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int index = pattern.indexOf(PLACEHOLDER, start);
+            if (index < 0) {
+                break;
+            }
+            builder.append(pattern, start, index).append(arg);
+            start = index + PLACEHOLDER.length();
+        }
+        return builder.append(pattern, start, pattern.length()).toString();
+    }
+
+    /**
+     * Get the throwable passed as last argument, which is not used by a
+     * placeholder
+     *
+     * @param args the arguments
+     * @return the throwable or null
+     */
+    public static Throwable throwable(Object... args) {
+        if (args == null || args.length == 0) {
+            return null;
+        }
+        return args[args.length - 1] instanceof Throwable t ? t : null;
+    }
+}
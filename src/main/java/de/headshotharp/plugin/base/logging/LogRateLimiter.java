@@ -0,0 +1,163 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.logging;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * Collapses log storms. Each message key is logged at most once per window,
+ * further occurrences are only counted and reported with the next logged
+ * occurrence or by {@link #flush()}. Stack traces are printed once per window
+ * and exception type. Counters are lock-free, suppressing a message costs a map
+ * lookup and an increment.
+ */
+public class LogRateLimiter implements AutoCloseable {
+
+    /**
+     * Returned by {@link #acquire(Object)} if the message must not be logged
+     */
+    public static final long SUPPRESSED = -1;
+
+    private static final int MAX_KEYS = 1024;
+
+    private final long windowNanos;
+    private final BiConsumer<Level, String> sink;
+    private final Map<Object, Window> windows = new ConcurrentHashMap<>();
+    private final Map<Class<?>, AtomicLong> traces = new ConcurrentHashMap<>();
+
+    /**
+     * Create a limiter
+     *
+     * @param window time window per message key
+     * @param sink   logs summaries of suppressed messages
+     */
+    public LogRateLimiter(Duration window, BiConsumer<Level, String> sink) {
+        this.windowNanos = window.toNanos();
+        this.sink = sink;
+    }
+
+    /**
+     * Check whether a message with the given key may be logged. Once the window of
+     * the key expired the next message is logged. Keys beyond the tracked maximum
+     * are never limited.
+     *
+     * @param key the message key, e.g. the message format
+     * @return {@link #SUPPRESSED} or the number of suppressed messages since the key
+     *         was logged last
+     */
+    public long acquire(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= MAX_KEYS) {
+                return 0;
+            }
+            window = windows.computeIfAbsent(key, k -> new Window(now - windowNanos));
+        }
+        long start = window.start.get();
+        if (now - start >= windowNanos && window.start.compareAndSet(start, now)) {
+            return window.suppressed.sumThenReset();
+        }
+        window.suppressed.increment();
+        return SUPPRESSED;
+    }
+
+    /**
+     * Check whether the stack trace of the given exception may be logged
+     *
+     * @param throwable the exception to log
+     * @return true if no exception of this type was printed within the window
+     */
+    public boolean acquireTrace(Throwable throwable) {
+        long now = System.nanoTime();
+        AtomicLong last = traces.computeIfAbsent(throwable.getClass(), k -> new AtomicLong(now - windowNanos));
+        long printed = last.get();
+        return now - printed >= windowNanos && last.compareAndSet(printed, now);
+    }
+
+    /**
+     * Remember the message logged for a key acquired before, used for summaries
+     *
+     * @param key     the message key
+     * @param level   the level of the message
+     * @param message the logged message
+     */
+    public void logged(Object key, Level level, String message) {
+        Window window = key == null ? null : windows.get(key);
+        if (window != null) {
+            window.level = level;
+            window.message = message;
+        }
+    }
+
+    /**
+     * Report suppressed messages of expired windows and forget idle keys. Called
+     * periodically so the last suppressed messages of a storm are not lost.
+     */
+    public void flush() {
+        long now = System.nanoTime();
+        windows.forEach((key, window) -> {
+            if (now - window.start.get() < windowNanos) {
+                return;
+            }
+            long suppressed = window.suppressed.sumThenReset();
+            if (suppressed > 0) {
+                sink.accept(window.level, window.message + " (repeated " + suppressed + " more times)");
+            } else {
+                windows.remove(key, window);
+            }
+        });
+    }
+
+    /**
+     * Report all pending suppressed messages
+     */
+    @Override
+    public void close() {
+        windows.forEach((key, window) -> {
+            long suppressed = window.suppressed.sumThenReset();
+            if (suppressed > 0) {
+                sink.accept(window.level, window.message + " (repeated " + suppressed + " more times)");
+            }
+        });
+        windows.clear();
+    }
+
+    private static class Window {
+
+        private final AtomicLong start;
+        private final LongAdder suppressed = new LongAdder();
+        private volatile Level level = Level.INFO;
+        private volatile String message;
+
+        Window(long start) {
+            this.start = new AtomicLong(start);
+        }
+    }
+}
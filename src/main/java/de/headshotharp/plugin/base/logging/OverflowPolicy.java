@@ -0,0 +1,39 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.logging;
+
+/**
+ * Behaviour of the {@link AsyncLogDispatcher} if its buffer is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Drop the new record
+     */
+    DISCARD,
+    /**
+     * Drop the oldest buffered record to make room for the new one
+     */
+    DISCARD_OLDEST,
+    /**
+     * Log the new record synchronously on the calling thread
+     */
+    CALLER_RUNS
+}
@@ -0,0 +1,95 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.profiling;
+
+/**
+ * Resources used by a single startup phase, see {@link StartupProfiler}
+ */
+public class PhaseStats {
+
+    private final String name;
+    private final int depth;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+
+    /**
+     * Create stats of a finished phase
+     *
+     * @param name           name of the phase
+     * @param depth          number of enclosing phases
+     * @param wallNanos      elapsed wall clock time
+     * @param cpuNanos       CPU time of the profiled thread, -1 if not supported
+     * @param allocatedBytes bytes allocated by the profiled thread, -1 if not
+     *                       supported
+     */
+    public PhaseStats(String name, int depth, long wallNanos, long cpuNanos, long allocatedBytes) {
+        this.name = name;
+        this.depth = depth;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Get the name of the phase
+     *
+     * @return name of the phase
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of enclosing phases
+     *
+     * @return zero for top level phases
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the elapsed wall clock time
+     *
+     * @return wall time in nanoseconds
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Get the CPU time of the profiled thread
+     *
+     * @return CPU time in nanoseconds, -1 if not supported by the JVM
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * Get the bytes allocated by the profiled thread
+     *
+     * @return allocated bytes, -1 if not supported by the JVM
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.profiling;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.bukkit.plugin.Plugin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Records wall time, CPU time and allocated bytes of the phases of plugin
+ * enable. The profiler is bound to the thread calling
+ * {@link #start(Plugin)}, usually the server thread in onEnable. Library code
+ * like command scanning and config parsing reports its phases by
+ * {@link #phase(String)}, which does nothing if no profiler is active.<br />
+ * {@link #finish()} logs a summary and writes {@value #REPORT_FILE} to the
+ * plugin folder. Phases which got noticeably slower than in the previous
+ * report are logged as warning, so regressions across releases stand out.
+ * Closing the profiler stops profiling without a report, so a failing
+ * onEnable does not leave it active on the server thread.
+ *
+ * <pre>
+ * try (StartupProfiler profiler = StartupProfiler.start(this)) {
+ *     try (StartupProfiler.Phase phase = StartupProfiler.phase("config")) {
+ *         ...
+ *     }
+ *     profiler.finish();
+ * }
+ * </pre>
+ */
+public final class StartupProfiler implements AutoCloseable {
+
+    /**
+     * Name of the report file in the plugin folder
+     */
+    public static final String REPORT_FILE = "startup-profile.json";
+
+    private static final ThreadLocal<StartupProfiler> ACTIVE = new ThreadLocal<>();
+    private static final Phase NOOP = new Phase(null, null, -1);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final double REGRESSION_RATIO = 1.2;
+    private static final double REGRESSION_MIN_MILLIS = 5;
+
+    private final Plugin plugin;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTime;
+    private final boolean allocatedBytes;
+    private final List<PhaseStats> phases = new ArrayList<>();
+    private final Phase total;
+    private int depth;
+
+    private StartupProfiler(Plugin plugin) {
+        this.plugin = plugin;
+        this.cpuTime = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        this.allocatedBytes = threads instanceof com.sun.management.ThreadMXBean sunThreads
+                && sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled();
+        this.total = new Phase(this, "total", -1);
+    }
+
+    /**
+     * Start profiling on the current thread. A profiler still active on this
+     * thread, left behind by a plugin failing to enable, is discarded.
+     *
+     * @param plugin the plugin being enabled
+     * @return the profiler
+     */
+    public static StartupProfiler start(Plugin plugin) {
+        StartupProfiler stale = ACTIVE.get();
+        if (stale != null) {
+            stale.plugin.getLogger().warning("Discarding unfinished startup profile");
+        }
+        StartupProfiler profiler = new StartupProfiler(plugin);
+        ACTIVE.set(profiler);
+        return profiler;
+    }
+
+    /**
+     * Start a phase of the profiler active on the current thread. Phases may be
+     * nested and are finished by closing them.
+     *
+     * @param name name of the phase
+     * @return the running phase, a phase recording nothing if no profiler is
+     *         active
+     */
+    public static Phase phase(String name) {
+        StartupProfiler profiler = ACTIVE.get();
+        if (profiler == null) {
+            return NOOP;
+        }
+        profiler.phases.add(null);
+        Phase phase = new Phase(profiler, name, profiler.phases.size() - 1);
+        profiler.depth++;
+        return phase;
+    }
+
+    /**
+     * Check whether a profiler is active on the current thread
+     *
+     * @return true if phases are recorded
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /**
+     * Get all finished phases in the order they were started
+     *
+     * @return finished phases
+     */
+    public List<PhaseStats> getPhases() {
+        return phases.stream().filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Stop profiling, log a summary and write the report to the plugin folder
+     *
+     * @return resources used since the profiler was started
+     */
+    public PhaseStats finish() {
+        close();
+        PhaseStats totalStats = total.stats();
+        File reportFile = new File(plugin.getDataFolder(), REPORT_FILE);
+        JsonNode previous = readPreviousReport(reportFile);
+        logSummary(totalStats, previous);
+        try {
+            if (!reportFile.getParentFile().isDirectory() && !reportFile.getParentFile().mkdirs()) {
+                throw new IOException("Could not create " + reportFile.getParentFile());
+            }
+            JSON.writerWithDefaultPrettyPrinter().writeValue(reportFile, toJson(totalStats, previous));
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write startup report " + reportFile, e);
+        }
+        return totalStats;
+    }
+
+    /**
+     * Stop profiling without writing a report, does nothing if already finished
+     */
+    @Override
+    public void close() {
+        if (ACTIVE.get() == this) {
+            ACTIVE.remove();
+        }
+    }
+
+    private void logSummary(PhaseStats totalStats, JsonNode previous) {
+        plugin.getLogger().info(() -> "Enabled in " + describe(totalStats));
+        Map<String, Double> previousMillis = previousMillis(previous);
+        Map<String, Double> currentMillis = new HashMap<>();
+        for (PhaseStats phase : getPhases()) {
+            currentMillis.merge(phase.getName(), millis(phase.getWallNanos()), Double::sum);
+        }
+        Set<String> regressions = new HashSet<>();
+        String previousVersion = previous == null ? null : previous.path("version").asText();
+        for (PhaseStats phase : getPhases()) {
+            Double before = previousMillis.get(phase.getName());
+            double millis = currentMillis.get(phase.getName());
+            if (before != null && millis > before * REGRESSION_RATIO && millis - before >= REGRESSION_MIN_MILLIS
+                    && regressions.add(phase.getName())) {
+                plugin.getLogger().warning(() -> String.format(Locale.ROOT,
+                        "Startup phase %s took %.1f ms, %.0f%% slower than %.1f ms in version %s", phase.getName(),
+                        millis, (millis / before - 1) * 100, before, previousVersion));
+            } else if (phase.getDepth() == 0) {
+                plugin.getLogger().info(() -> "  " + phase.getName() + ": " + describe(phase));
+            } else {
+                plugin.getLogger().fine(() -> "  " + "  ".repeat(phase.getDepth()) + phase.getName() + ": "
+                        + describe(phase));
+            }
+        }
+    }
+
+    private ObjectNode toJson(PhaseStats totalStats, JsonNode previous) {
+        ObjectNode report = JSON.createObjectNode();
+        report.put("plugin", plugin.getName());
+        report.put("version", plugin.getDescription() == null ? null : plugin.getDescription().getVersion());
+        report.put("java", System.getProperty("java.version"));
+        report.put("created", Instant.now().toString());
+        if (previous != null) {
+            report.put("previousVersion", previous.path("version").asText());
+            report.put("previousWallMillis", previous.path("wallMillis").asDouble());
+        }
+        putStats(report, totalStats);
+        Map<String, Double> previousMillis = previousMillis(previous);
+        ArrayNode phaseArray = report.putArray("phases");
+        for (PhaseStats phase : getPhases()) {
+            ObjectNode node = phaseArray.addObject();
+            node.put("name", phase.getName());
+            node.put("depth", phase.getDepth());
+            putStats(node, phase);
+            Double before = previousMillis.get(phase.getName());
+            if (before != null) {
+                node.put("previousWallMillis", before);
+            }
+        }
+        return report;
+    }
+
+    private static void putStats(ObjectNode node, PhaseStats stats) {
+        node.put("wallMillis", millis(stats.getWallNanos()));
+        node.put("cpuMillis", stats.getCpuNanos() < 0 ? -1 : millis(stats.getCpuNanos()));
+        node.put("allocatedBytes", stats.getAllocatedBytes());
+    }
+
+    private JsonNode readPreviousReport(File reportFile) {
+        if (!reportFile.isFile()) {
+            return null;
+        }
+        try {
+            return JSON.readTree(reportFile);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.FINE, "Ignoring unreadable startup report " + reportFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Sum the wall time of the previous report per phase name, phases like
+     * command creation may be reported more than once and are compared by their
+     * sum
+     */
+    private static Map<String, Double> previousMillis(JsonNode previous) {
+        Map<String, Double> millis = new HashMap<>();
+        if (previous != null) {
+            for (JsonNode phase : previous.path("phases")) {
+                millis.merge(phase.path("name").asText(), phase.path("wallMillis").asDouble(), Double::sum);
+            }
+        }
+        return millis;
+    }
+
+    private static String describe(PhaseStats stats) {
+        StringBuilder description = new StringBuilder(
+                String.format(Locale.ROOT, "%.1f ms", millis(stats.getWallNanos())));
+        if (stats.getCpuNanos() >= 0) {
+            description.append(String.format(Locale.ROOT, ", %.1f ms CPU", millis(stats.getCpuNanos())));
+        }
+        if (stats.getAllocatedBytes() >= 0) {
+            description.append(String.format(Locale.ROOT, ", %.1f MB allocated",
+                    stats.getAllocatedBytes() / (1024.0 * 1024.0)));
+        }
+        return description.toString();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private long cpuNanos() {
+        return cpuTime ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    private long allocatedBytes() {
+        return allocatedBytes ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * A running phase, finished by {@link #close()}
+     */
+    public static final class Phase implements AutoCloseable {
+
+        private final StartupProfiler profiler;
+        private final String name;
+        private final int index;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+
+        private Phase(StartupProfiler profiler, String name, int index) {
+            this.profiler = profiler;
+            this.name = name;
+            this.index = index;
+            this.startAllocated = profiler == null ? 0 : profiler.allocatedBytes();
+            this.startCpu = profiler == null ? 0 : profiler.cpuNanos();
+            this.startWall = System.nanoTime();
+        }
+
+        private PhaseStats stats() {
+            long wall = System.nanoTime() - startWall;
+            long cpu = profiler.cpuTime ? profiler.cpuNanos() - startCpu : -1;
+            long allocated = profiler.allocatedBytes ? profiler.allocatedBytes() - startAllocated : -1;
+            return new PhaseStats(name, profiler.depth, wall, cpu, allocated);
+        }
+
+        /**
+         * Finish the phase
+         */
+        @Override
+        public void close() {
+            if (profiler == null || index < 0) {
+                return;
+            }
+            profiler.depth--;
+            profiler.phases.set(index, stats());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.Server;
+import org.bukkit.event.server.ServiceUnregisterEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import de.headshotharp.plugin.base.PluginServices.DisableHook;
+
+class PluginServicesTest {
+
+    @Test
+    void testServicesAreClosedAfterDisable() {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Server server = Mockito.mock(Server.class);
+        ServicesManager servicesManager = Mockito.mock(ServicesManager.class);
+        Mockito.when(plugin.isEnabled()).thenReturn(true);
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        Mockito.when(server.getServicesManager()).thenReturn(servicesManager);
+        Counter counter = PluginServices.get(plugin, Counter.class, p -> new Counter());
+        PluginServices.get(plugin, Counter.class, p -> new Counter());
+        ArgumentCaptor<DisableHook> hook = ArgumentCaptor.forClass(DisableHook.class);
+        Mockito.verify(servicesManager).register(Mockito.eq(DisableHook.class), hook.capture(), Mockito.eq(plugin),
+                Mockito.eq(ServicePriority.Lowest));
+        // other providers do not close the services
+        hook.getValue().onServiceUnregister(new ServiceUnregisterEvent(
+                new RegisteredServiceProvider<>(Object.class, new Object(), ServicePriority.Normal, plugin)));
+        assertThat(counter.closed.get(), is(0));
+        hook.getValue().onServiceUnregister(new ServiceUnregisterEvent(
+                new RegisteredServiceProvider<>(DisableHook.class, hook.getValue(), ServicePriority.Lowest, plugin)));
+        assertThat(counter.closed.get(), is(1));
+        Mockito.verify(servicesManager).unregister(DisableHook.class, hook.getValue());
+        PluginServices.closeAll(plugin);
+        assertThat(counter.closed.get(), is(1));
+        assertThat(PluginServices.get(plugin, Counter.class, p -> new Counter()), is(not(sameInstance(counter))));
+        PluginServices.closeAll(plugin);
+    }
+
+    @Test
+    void testDisabledPluginsAreNotHooked() {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Counter counter = PluginServices.get(plugin, Counter.class, p -> new Counter());
+        Mockito.verify(plugin, Mockito.never()).getServer();
+        PluginServices.closeAll(plugin);
+        assertThat(counter.closed.get(), is(1));
+    }
+
+    static class Counter implements AutoCloseable {
+
+        final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.headshotharp.plugin.base.command.testplugin.TestCommandImpl;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+import de.headshotharp.plugin.base.command.testplugin.lazy.LazyTestCommand;
+
+class CommandIndexTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void testIndexesOfAllJarsAreMerged() throws IOException {
+        ClassLoader classLoader = loader(index("first", "# generated\n\nb.Second\n  a.First  \n"),
+                index("second", "c.Third\na.First\n"));
+        assertThat(CommandIndex.load(classLoader), is(equalTo(Set.of("a.First", "b.Second", "c.Third"))));
+        assertThat(CommandIndex.load(loader()), is(nullValue()));
+    }
+
+    @Test
+    void testPackageMatching() {
+        assertThat(CommandIndex.isInPackage("a.b.Command", "a.b", false), is(true));
+        assertThat(CommandIndex.isInPackage("a.b.Command$Nested", "a.b", false), is(true));
+        assertThat(CommandIndex.isInPackage("a.b.c.Command", "a.b", false), is(false));
+        assertThat(CommandIndex.isInPackage("a.b.c.Command", "a.b", true), is(true));
+        assertThat(CommandIndex.isInPackage("a.bc.Command", "a.b", true), is(false));
+        assertThat(CommandIndex.isInPackage("Command", "", false), is(true));
+    }
+
+    @Test
+    void testIndexIsPreferredOverClasspathScanning() throws IOException {
+        String packageName = TestPluginImpl.class.getPackageName();
+        // stale entries and classes which are no commands are ignored
+        ClassLoader classLoader = loader(index("index", LazyTestCommand.class.getName() + "\nremoved.Command\n"
+                + TestPluginImpl.class.getName() + "\n"));
+        assertThat(CommandRegistry.findClasses(packageName, true, classLoader),
+                is(equalTo(Set.of(LazyTestCommand.class))));
+        // the index lists no command of the package itself, the classpath is scanned
+        assertThat(CommandRegistry.findClasses(packageName, false, classLoader).contains(TestCommandImpl.class),
+                is(true));
+        assertThat(CommandRegistry.findClasses(LazyTestCommand.class.getPackageName(), false, loader()),
+                is(equalTo(Set.of(LazyTestCommand.class))));
+    }
+
+    private URL index(String jar, String content) throws IOException {
+        Path index = folder.resolve(jar).resolve(CommandIndex.INDEX_RESOURCE);
+        Files.createDirectories(index.getParent());
+        Files.writeString(index, content);
+        return index.toUri().toURL();
+    }
+
+    /**
+     * Class loader seeing only the given indexes, independent of an index
+     * generated for the test classes
+     */
+    private static ClassLoader loader(URL... indexes) {
+        List<URL> urls = new ArrayList<>(List.of(indexes));
+        return new ClassLoader(CommandIndexTest.class.getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                return CommandIndex.INDEX_RESOURCE.equals(name) ? Collections.enumeration(urls)
+                        : super.getResources(name);
+            }
+        };
+    }
+}
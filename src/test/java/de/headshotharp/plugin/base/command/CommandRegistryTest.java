@@ -22,18 +22,41 @@ package de.headshotharp.plugin.base.command;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doCallRealMethod;
 
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
+import org.bukkit.ChatColor;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.defaults.BukkitCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginManager;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
+import de.headshotharp.plugin.base.PluginServices;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.inject.Injector;
+import de.headshotharp.plugin.base.command.metrics.CommandStats;
+import de.headshotharp.plugin.base.command.metrics.CommandStatsCommand;
+import de.headshotharp.plugin.base.command.metrics.HistogramCommandMetrics;
+import de.headshotharp.plugin.base.command.ratelimit.RateLimit;
 import de.headshotharp.plugin.base.command.testplugin.TestDataSource;
 import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+import de.headshotharp.plugin.base.command.testplugin.lazy.LazyTestCommand;
+import de.headshotharp.plugin.base.command.testplugin.lazy.mismatch.MismatchingLazyCommand;
+import de.headshotharp.plugin.base.command.testplugin.lazy.missing.MissingInjectableCommand;
 
 class CommandRegistryTest {
 
@@ -61,4 +84,325 @@ class CommandRegistryTest {
         // check
         assertThat(pluginMock.msg, is(equalTo("[MC] Hello World!")));
     }
+
+    @Test
+    void testLazyCommandsAreCreatedOnFirstDispatch()
+            throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        Mockito.when(pluginMock.getLogger()).thenCallRealMethod();
+        doCallRealMethod().when(pluginMock).someCustomMethod(anyString());
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        int instances = LazyTestCommand.INSTANCES.get();
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, TestPluginImpl.class,
+                LazyTestCommand.class.getPackageName(), false, new Injector(), true);
+        LazyCommand<?> lazy = (LazyCommand<?>) registry.getCommands().get(0);
+        assertThat(registry.onTabComplete(sender, "test", "l"), is(equalTo(List.of("lazy", "lz"))));
+        assertThat(lazy.isInstantiated(), is(false));
+        registry.execute(sender, "test", "LZ", "Hello");
+        registry.execute(sender, "test", "lazy", "World");
+        assertThat(lazy.isInstantiated(), is(true));
+        assertThat(LazyTestCommand.INSTANCES.get() - instances, is(equalTo(1)));
+        assertThat(pluginMock.msg, is(equalTo("World")));
+    }
+
+    @Test
+    void testLazyCommandMismatchesAreLogged()
+            throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        Logger logger = Logger.getLogger(CommandRegistryTest.class.getName() + ".lazy");
+        List<String> warnings = new LinkedList<>();
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord logRecord) {
+                warnings.add(logRecord.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        Mockito.when(pluginMock.getLogger()).thenReturn(logger);
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, TestPluginImpl.class,
+                MismatchingLazyCommand.class.getPackageName(), false, new Injector(), true);
+        LazyCommand<?> lazy = (LazyCommand<?>) registry.getCommands().get(0);
+        // served from the annotation on the async tab completion thread
+        assertThat(lazy.isTabCompletionAsyncSafe(), is(true));
+        assertThat(lazy.getTabCompletionCacheTtl(), is(equalTo(Duration.ofSeconds(1))));
+        assertThat(lazy.isInstantiated(), is(false));
+        registry.execute(Mockito.mock(CommandSender.class), "test", "mismatch");
+        assertThat(lazy.isInstantiated(), is(true));
+        assertThat(warnings, is(equalTo(List.of("@CommandInfo of " + MismatchingLazyCommand.class.getName()
+                + " does not match the command: aliases is [mm] but the command returns [], "
+                + "playerOnly is false but the command returns true, "
+                + "permission is null but the command returns test.mismatch"))));
+    }
+
+    @Test
+    void testLazyCommandsWithMissingInjectablesFailOnRegistration() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        String packageName = MissingInjectableCommand.class.getPackageName();
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new CommandRegistry<>("test", pluginMock, TestPluginImpl.class, packageName, false,
+                        new Injector(), true));
+        assertThat(e.getMessage(), is(equalTo("The class MissingInjectableCommand has an invalid constructor "
+                + "param type: TestDataSource")));
+    }
+
+    @Test
+    void testDispatchByNameAndAliasIgnoringCase() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        RecordingCommand first = new RecordingCommand(pluginMock, "first", List.of("f", "one"));
+        RecordingCommand second = new RecordingCommand(pluginMock, "second", List.of());
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, first, second);
+        registry.execute(sender, "test", "ONE", "a");
+        registry.execute(sender, "test", "Second", "b");
+        registry.execute(sender, "test", "f", "c");
+        assertThat(first.executions, is(equalTo(List.of("ONE a", "f c"))));
+        assertThat(second.executions, is(equalTo(List.of("Second b"))));
+    }
+
+    @Test
+    void testCustomApplicableKeepsRegistrationOrder() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        RecordingCommand catchAll = new RecordingCommand(pluginMock, "any", List.of()) {
+            @Override
+            public boolean isApplicable(CommandSender sender, String command, String... args) {
+                return args.length > 0 && args[0].equals("catch");
+            }
+        };
+        RecordingCommand named = new RecordingCommand(pluginMock, "named", List.of());
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, catchAll);
+        registry.addCommand(named);
+        registry.execute(sender, "test", "named", "catch");
+        registry.execute(sender, "test", "named", "other");
+        assertThat(catchAll.executions, is(equalTo(List.of("named catch"))));
+        assertThat(named.executions, is(equalTo(List.of("named other"))));
+    }
+
+    @Test
+    void testTabCompletionByPrefixWithLimit() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock,
+                new RecordingCommand(pluginMock, "Reload", List.of("rl")),
+                new RecordingCommand(pluginMock, "remove", List.of()),
+                new RecordingCommand(pluginMock, "add", List.of()));
+        assertThat(registry.onTabComplete(sender, "test", "R"), is(equalTo(List.of("reload", "remove", "rl"))));
+        assertThat(registry.onTabComplete(sender, "test", "rem"), is(equalTo(List.of("remove"))));
+        assertThat(registry.onTabComplete(sender, "test", "x"), is(equalTo(List.of())));
+        registry.setTabCompletionLimit(2);
+        assertThat(registry.onTabComplete(sender, "test", ""), is(equalTo(List.of("add", "reload"))));
+        assertThat(registry.onTabComplete(sender, "test", "re"), is(equalTo(List.of("reload", "remove"))));
+    }
+
+    @Test
+    void testNestedRegistriesShiftArguments() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        RecordingCommand set = new RecordingCommand(pluginMock, "set", List.of());
+        CommandRegistry<TestPluginImpl> item = new CommandRegistry<>("item", pluginMock, set);
+        CommandRegistry<TestPluginImpl> admin = new CommandRegistry<>("admin", pluginMock, item);
+        CommandRegistry<TestPluginImpl> shop = new CommandRegistry<>("shop", pluginMock, admin);
+        shop.execute(sender, "shop", "admin", "item", "set", "diamond", "64");
+        assertThat(set.executions, is(equalTo(List.of("set diamond 64"))));
+        assertThat(shop.onTabComplete(sender, "shop", "admin", "item", "s"), is(equalTo(List.of("set"))));
+    }
+
+    @Test
+    void testCompiledDispatchTableResolvesPathsAndKeepsUsage() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        RecordingCommand set = new RecordingCommand(pluginMock, "set", List.of("s"));
+        CommandRegistry<TestPluginImpl> item = new CommandRegistry<>("item", pluginMock, set);
+        CommandRegistry<TestPluginImpl> admin = new CommandRegistry<>("admin", pluginMock, item);
+        CommandRegistry<TestPluginImpl> shop = new CommandRegistry<>("shop", pluginMock, admin);
+        shop.compileDispatchTable();
+        assertThat(shop.getDispatchTable().size(), is(equalTo(4)));
+        shop.execute(sender, "shop", "Admin", "ITEM", "s", "diamond", "64");
+        shop.execute(sender, "shop", "admin", "item", "unknown");
+        shop.execute(sender, "shop", "admin");
+        assertThat(set.executions, is(equalTo(List.of("s diamond 64"))));
+        Mockito.verify(sender).sendMessage(ChatColor.YELLOW + item.usage());
+        Mockito.verify(sender).sendMessage(ChatColor.YELLOW + admin.usage());
+        RecordingCommand remove = new RecordingCommand(pluginMock, "remove", List.of());
+        item.addCommand(remove);
+        assertThat(shop.getDispatchTable().size(), is(equalTo(5)));
+        shop.execute(sender, "shop", "admin", "item", "remove", "dirt");
+        assertThat(remove.executions, is(equalTo(List.of("remove dirt"))));
+    }
+
+    @Test
+    void testMetricsCountInvocationsAndFailures() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        RecordingCommand failing = new RecordingCommand(pluginMock, "fail", List.of()) {
+            @Override
+            public boolean execute(CommandSender sender, String command, String... args) {
+                super.execute(sender, command, args);
+                return false;
+            }
+        };
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, failing);
+        HistogramCommandMetrics metrics = new HistogramCommandMetrics();
+        registry.setMetrics(metrics);
+        registry.execute(sender, "test", "fail");
+        registry.execute(sender, "test", "fail", "again");
+        CommandStats stats = metrics.getStats().iterator().next();
+        assertThat(stats.getName(), is(equalTo("fail")));
+        assertThat(stats.getExecutions().getCount(), is(equalTo(2L)));
+        assertThat(stats.getFailures(), is(equalTo(2L)));
+    }
+
+    @Test
+    void testStatsRequirePermission() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        Mockito.when(pluginMock.getName()).thenReturn("Shop");
+        Server server = Mockito.mock(Server.class);
+        Mockito.when(pluginMock.getServer()).thenReturn(server);
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        HistogramCommandMetrics metrics = new HistogramCommandMetrics();
+        CommandStatsCommand<TestPluginImpl> stats = new CommandStatsCommand<>(pluginMock, metrics);
+        assertThat(stats.getPermission(), is(equalTo("shop.stats")));
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, stats);
+        registry.setMetrics(metrics);
+        registry.execute(sender, "test", "stats", "reset");
+        Mockito.verify(sender).sendMessage(ChatColor.RED + "You do not have permission to use this command");
+        Mockito.verify(sender, Mockito.never()).sendMessage("Command stats reset");
+        Mockito.when(sender.hasPermission("shop.stats")).thenReturn(true);
+        registry.execute(sender, "test", "stats", "reset");
+        Mockito.verify(sender).sendMessage("Command stats reset");
+        assertThat(new CommandStatsCommand<>(pluginMock, metrics, "shop.admin").getPermission(),
+                is(equalTo("shop.admin")));
+        PluginServices.closeAll(pluginMock);
+    }
+
+    @Test
+    void testRateLimitIsEnforcedPerSender() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender alice = Mockito.mock(CommandSender.class);
+        Mockito.when(alice.getName()).thenReturn("alice");
+        CommandSender bob = Mockito.mock(CommandSender.class);
+        Mockito.when(bob.getName()).thenReturn("bob");
+        RecordingCommand limited = new RecordingCommand(pluginMock, "limited", List.of()) {
+            private final RateLimit rateLimit = RateLimit.cooldown(Duration.ofHours(1));
+
+            @Override
+            public RateLimit getRateLimit() {
+                return rateLimit;
+            }
+        };
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, limited);
+        registry.execute(alice, "test", "limited", "1");
+        registry.execute(alice, "test", "limited", "2");
+        registry.execute(bob, "test", "limited", "3");
+        assertThat(limited.executions, is(equalTo(List.of("limited 1", "limited 3"))));
+        Mockito.verify(alice).sendMessage(ChatColor.RED + "Please wait 3600s before using this command again");
+    }
+
+    @Test
+    void testPermissionsFilterDispatchAndCompletion() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        Server server = Mockito.mock(Server.class);
+        Mockito.when(pluginMock.getServer()).thenReturn(server);
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        Mockito.when(player.hasPermission("shop.admin")).thenReturn(false);
+        RecordingCommand reload = new RecordingCommand(pluginMock, "reload", List.of()) {
+            @Override
+            public String getPermission() {
+                return "shop.admin";
+            }
+        };
+        RecordingCommand remove = new RecordingCommand(pluginMock, "remove", List.of());
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, reload, remove);
+        assertThat(registry.onTabComplete(player, "test", "re"), is(equalTo(List.of("remove"))));
+        assertThat(registry.onTabComplete(player, "test", "reload", ""), is(equalTo(List.of())));
+        registry.execute(player, "test", "reload");
+        registry.execute(player, "test", "remove");
+        assertThat(reload.executions, is(equalTo(List.of())));
+        assertThat(remove.executions, is(equalTo(List.of("remove "))));
+        Mockito.verify(player).sendMessage(ChatColor.RED + "You do not have permission to use this command");
+        Mockito.verify(player, Mockito.times(1)).hasPermission("shop.admin");
+        PluginServices.closeAll(pluginMock);
+    }
+
+    @Test
+    void testLegacyOverridesOfNestedRegistriesAreCalled() {
+        TestPluginImpl pluginMock = Mockito.mock(TestPluginImpl.class);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        RecordingCommand set = new RecordingCommand(pluginMock, "set", List.of());
+        List<String> calls = new LinkedList<>();
+        CommandRegistry<TestPluginImpl> nested = new CommandRegistry<>("config", pluginMock, set) {
+            @Override
+            public boolean execute(CommandSender sender, String command, String... args) {
+                calls.add("execute " + String.join(" ", args));
+                return super.execute(sender, command, args);
+            }
+
+            @Override
+            public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+                calls.add("complete " + String.join(" ", args));
+                return super.onTabComplete(sender, command, args);
+            }
+        };
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", pluginMock, nested);
+        registry.execute(sender, "test", "config", "set", "a");
+        assertThat(registry.onTabComplete(sender, "test", "config", "s"), is(equalTo(List.of("set"))));
+        assertThat(calls, is(equalTo(List.of("execute set a", "complete s"))));
+        assertThat(set.executions, is(equalTo(List.of("set a"))));
+        assertThat(nested.usesDefaultTabCompletion(), is(false));
+        assertThat(registry.usesDefaultTabCompletion(), is(true));
+    }
+
+    static class RecordingCommand extends ExecutableCommand<TestPluginImpl> {
+
+        private final String name;
+        private final List<String> aliases;
+        final List<String> executions = new LinkedList<>();
+
+        RecordingCommand(TestPluginImpl plugin, String name, List<String> aliases) {
+            super(plugin);
+            this.name = name;
+            this.aliases = aliases;
+        }
+
+        @Override
+        public boolean execute(CommandSender sender, String command, String... args) {
+            executions.add(command + " " + String.join(" ", args));
+            return true;
+        }
+
+        @Override
+        public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+            return new LinkedList<>();
+        }
+
+        @Override
+        public boolean isForPlayerOnly() {
+            return false;
+        }
+
+        @Override
+        public String usage() {
+            return "/" + name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public List<String> getAliases() {
+            return aliases;
+        }
+    }
 }
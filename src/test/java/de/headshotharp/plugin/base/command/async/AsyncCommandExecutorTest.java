@@ -0,0 +1,173 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.async;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicesManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import de.headshotharp.plugin.base.PluginServices;
+import de.headshotharp.plugin.base.command.CommandRegistry;
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.generic.ExecutionPolicy;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+
+class AsyncCommandExecutorTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final Thread serverThread = Thread.currentThread();
+    private final TestPluginImpl plugin = Mockito.mock(TestPluginImpl.class);
+    private final CommandSender sender = Mockito.mock(CommandSender.class);
+
+    AsyncCommandExecutorTest() {
+        Server server = Mockito.mock(Server.class);
+        BukkitScheduler scheduler = Mockito.mock(BukkitScheduler.class);
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(plugin.getName()).thenReturn("test");
+        Mockito.when(plugin.getLogger()).thenReturn(Logger.getLogger(AsyncCommandExecutorTest.class.getName()));
+        Mockito.when(plugin.isEnabled()).thenReturn(true);
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        Mockito.when(server.getServicesManager()).thenReturn(Mockito.mock(ServicesManager.class));
+        Mockito.when(server.getScheduler()).thenReturn(scheduler);
+        Mockito.when(server.isPrimaryThread()).thenAnswer(invocation -> Thread.currentThread() == serverThread);
+        // the test thread plays the server thread, run scheduled tasks right away
+        Mockito.when(scheduler.runTask(Mockito.eq(plugin), Mockito.any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void closeServices() {
+        PluginServices.closeAll(plugin);
+    }
+
+    @Test
+    void testAsyncPolicyRunsOffServerThreadAndReportsUsage() {
+        AsyncCommand command = new AsyncCommand(plugin, "async", null);
+        CommandRegistry<TestPluginImpl> registry = new CommandRegistry<>("test", plugin, command);
+        registry.execute(sender, "test", "async");
+        Mockito.verify(sender, Mockito.timeout(TIMEOUT_MILLIS)).sendMessage(ChatColor.DARK_RED + "/async");
+        assertThat(command.thread, is(not(sameInstance(serverThread))));
+    }
+
+    @Test
+    void testCommandsAreRejectedIfTheQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncCommandExecutor executor = PluginServices.register(plugin, AsyncCommandExecutor.class,
+                new AsyncCommandExecutor(plugin, 1, 1, false));
+        AsyncCommand blocking = new AsyncCommand(plugin, "blocking", release);
+        executor.execute(sender, blocking, "blocking", Arguments.of());
+        executor.execute(sender, blocking, "blocking", Arguments.of());
+        executor.execute(sender, blocking, "blocking", Arguments.of());
+        Mockito.verify(sender).sendMessage(ChatColor.DARK_RED + "The server is busy, please try again later");
+        release.countDown();
+        Mockito.verify(sender, Mockito.timeout(TIMEOUT_MILLIS).times(2)).sendMessage(ChatColor.DARK_RED + "/blocking");
+    }
+
+    @Test
+    void testInterruptedCommandsReplyAfterDisable() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AsyncCommand waiting = new AsyncCommand(plugin, "waiting", null) {
+            @Override
+            public boolean execute(CommandSender sender, String command, String... args) {
+                started.countDown();
+                // blocks, the server thread is busy disabling the plugin
+                return MainThread.of(getPlugin()).call(() -> true);
+            }
+        };
+        AsyncCommandExecutor executor = AsyncCommandExecutor.of(plugin);
+        // onDisable is running
+        Mockito.when(plugin.isEnabled()).thenReturn(false);
+        executor.execute(sender, waiting, "waiting", Arguments.of());
+        assertThat(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), is(true));
+        PluginServices.closeAll(plugin);
+        Mockito.verify(sender).sendMessage(ChatColor.DARK_RED + "The command was cancelled");
+    }
+
+    static class AsyncCommand extends ExecutableCommand<TestPluginImpl> {
+
+        private final String name;
+        private final CountDownLatch release;
+        volatile Thread thread;
+
+        AsyncCommand(TestPluginImpl plugin, String name, CountDownLatch release) {
+            super(plugin);
+            this.name = name;
+            this.release = release;
+        }
+
+        @Override
+        public ExecutionPolicy getExecutionPolicy() {
+            return ExecutionPolicy.ASYNC;
+        }
+
+        @Override
+        public boolean execute(CommandSender sender, String command, String... args) {
+            thread = Thread.currentThread();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+            return List.of();
+        }
+
+        @Override
+        public boolean isForPlayerOnly() {
+            return false;
+        }
+
+        @Override
+        public String usage() {
+            return "/" + name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.async;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicesManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+
+import de.headshotharp.plugin.base.PluginServices;
+import de.headshotharp.plugin.base.command.CommandRegistry;
+import de.headshotharp.plugin.base.command.generic.Arguments;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+
+class AsyncTabCompleterTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final TestPluginImpl plugin = Mockito.mock(TestPluginImpl.class);
+    private final CommandSender sender = Mockito.mock(CommandSender.class);
+    private final PluginCommand pluginCommand = Mockito.mock(PluginCommand.class);
+
+    AsyncTabCompleterTest() {
+        Server server = Mockito.mock(Server.class);
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(plugin.getName()).thenReturn("test");
+        Mockito.when(plugin.getLogger()).thenReturn(Logger.getLogger(AsyncTabCompleterTest.class.getName()));
+        Mockito.when(plugin.isEnabled()).thenReturn(true);
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        Mockito.when(server.getServicesManager()).thenReturn(Mockito.mock(ServicesManager.class));
+        Mockito.when(sender.getName()).thenReturn("alice");
+        Mockito.when(pluginCommand.getName()).thenReturn("test");
+        Mockito.when(pluginCommand.getAliases()).thenReturn(List.of("t"));
+        Mockito.when(pluginCommand.testPermissionSilent(sender)).thenReturn(true);
+    }
+
+    @AfterEach
+    void closeServices() {
+        PluginServices.closeAll(plugin);
+    }
+
+    @Test
+    void testBufferAndNamespaceParsing() {
+        CompletingCommand players = new CompletingCommand(plugin, "players", true, Duration.ZERO, null);
+        AsyncTabCompleter completer = completer(new CommandRegistry<>("test", plugin, players));
+
+        AsyncTabCompleteEvent event = event("/myplugin:T players a");
+        completer.onAsyncTabComplete(event);
+        Mockito.verify(event).setCompletions(List.of("alice", "bob"));
+        Mockito.verify(event).setHandled(true);
+        assertThat(players.lastArgs, is("a"));
+
+        event = event("test players ");
+        completer.onAsyncTabComplete(event);
+        Mockito.verify(event).setCompletions(List.of("alice", "bob"));
+        assertThat(players.lastArgs, is(""));
+
+        AsyncTabCompleteEvent other = event("/other players a");
+        completer.onAsyncTabComplete(other);
+        AsyncTabCompleteEvent label = event("/test");
+        completer.onAsyncTabComplete(label);
+        Mockito.verify(other, Mockito.never()).setHandled(true);
+        Mockito.verify(label, Mockito.never()).setHandled(true);
+        assertThat(players.calls.get(), is(2));
+    }
+
+    @Test
+    void testNestedRegistriesAreWalked() {
+        CompletingCommand players = new CompletingCommand(plugin, "players", true, Duration.ZERO, null);
+        CommandRegistry<TestPluginImpl> nested = new CommandRegistry<>("sub", plugin, players);
+        CommandRegistry<TestPluginImpl> root = new CommandRegistry<>("test", plugin, nested);
+        AsyncTabCompleter completer = completer(root);
+
+        AsyncTabCompleteEvent event = event("/test sub players b");
+        completer.onAsyncTabComplete(event);
+        Mockito.verify(event).setCompletions(List.of("alice", "bob"));
+        assertThat(players.lastArgs, is("b"));
+
+        assertThat(completer.complete(sender, root, "test", Arguments.of("")), hasItems("sub"));
+        assertThat(completer.complete(sender, root, "test", Arguments.of("unknown", "")),
+                is(List.of()));
+    }
+
+    @Test
+    void testCommandsNotAsyncSafeFallBackToServerThread() {
+        CompletingCommand players = new CompletingCommand(plugin, "players", false, Duration.ZERO, null);
+        AsyncTabCompleter completer = completer(new CommandRegistry<>("test", plugin, players));
+
+        AsyncTabCompleteEvent event = event("/test players a");
+        completer.onAsyncTabComplete(event);
+        Mockito.verify(event, Mockito.never()).setCompletions(Mockito.any());
+        Mockito.verify(event, Mockito.never()).setHandled(true);
+        assertThat(completer.complete(sender, players, "players", Arguments.of("a")), is(nullValue()));
+        assertThat(players.calls.get(), is(0));
+    }
+
+    @Test
+    void testSendersWithoutPermissionGetNoCompletions() {
+        CompletingCommand players = new CompletingCommand(plugin, "players", true, Duration.ZERO, null);
+        AsyncTabCompleter completer = completer(new CommandRegistry<>("test", plugin, players));
+        Mockito.when(pluginCommand.testPermissionSilent(sender)).thenReturn(false);
+
+        AsyncTabCompleteEvent event = event("/test players a");
+        completer.onAsyncTabComplete(event);
+        Mockito.verify(event).setCompletions(List.of());
+        Mockito.verify(event).setHandled(true);
+        assertThat(players.calls.get(), is(0));
+    }
+
+    @Test
+    void testCompletionsAreCachedPerPrefix() {
+        CompletingCommand players = new CompletingCommand(plugin, "players", true, Duration.ofMinutes(1), null);
+        AsyncTabCompleter completer = completer(new CommandRegistry<>("test", plugin, players));
+
+        completer.complete(sender, players, "players", Arguments.of("a"));
+        completer.complete(sender, players, "players", Arguments.of("a"));
+        assertThat(players.calls.get(), is(1));
+        completer.complete(sender, players, "players", Arguments.of("b"));
+        assertThat(players.calls.get(), is(2));
+    }
+
+    @Test
+    void testCompletionsAreCachedPerSender() {
+        CompletingCommand players = new CompletingCommand(plugin, "players", true, Duration.ofMinutes(1), null);
+        AsyncTabCompleter completer = completer(new CommandRegistry<>("test", plugin, players));
+        CommandSender bob = Mockito.mock(CommandSender.class);
+        Mockito.when(bob.getName()).thenReturn("bob");
+
+        completer.complete(sender, players, "players", Arguments.of("a"));
+        completer.complete(bob, players, "players", Arguments.of("a"));
+        assertThat(players.calls.get(), is(2));
+        completer.complete(bob, players, "players", Arguments.of("a"));
+        assertThat(players.calls.get(), is(2));
+    }
+
+    @Test
+    void testIdenticalRequestsInFlightAreCoalesced() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletingCommand players = new CompletingCommand(plugin, "players", true, Duration.ZERO, release);
+        AsyncTabCompleter completer = completer(new CommandRegistry<>("test", plugin, players));
+
+        CompletableFuture<List<String>> first = CompletableFuture
+                .supplyAsync(() -> completer.complete(sender, players, "players", Arguments.of("a")));
+        assertThat(players.entered.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), is(true));
+        CompletableFuture<List<String>> second = new CompletableFuture<>();
+        Thread thread = new Thread(
+                () -> second.complete(completer.complete(sender, players, "players", Arguments.of("a"))));
+        thread.start();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(thread.getState(), is(Thread.State.WAITING));
+        release.countDown();
+
+        assertThat(first.join(), is(List.of("alice", "bob")));
+        assertThat(second.join(), is(List.of("alice", "bob")));
+        assertThat(players.calls.get(), is(1));
+    }
+
+    private AsyncTabCompleter completer(CommandRegistry<TestPluginImpl> registry) {
+        return new AsyncTabCompleter(registry, pluginCommand);
+    }
+
+    private AsyncTabCompleteEvent event(String buffer) {
+        AsyncTabCompleteEvent event = Mockito.mock(AsyncTabCompleteEvent.class);
+        Mockito.when(event.isCommand()).thenReturn(true);
+        Mockito.when(event.getBuffer()).thenReturn(buffer);
+        Mockito.when(event.getSender()).thenReturn(sender);
+        return event;
+    }
+
+    static class CompletingCommand extends ExecutableCommand<TestPluginImpl> {
+
+        private final String name;
+        private final boolean asyncSafe;
+        private final Duration ttl;
+        private final CountDownLatch release;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        volatile String lastArgs;
+
+        CompletingCommand(TestPluginImpl plugin, String name, boolean asyncSafe, Duration ttl,
+                CountDownLatch release) {
+            super(plugin);
+            this.name = name;
+            this.asyncSafe = asyncSafe;
+            this.ttl = ttl;
+            this.release = release;
+        }
+
+        @Override
+        public boolean isTabCompletionAsyncSafe() {
+            return asyncSafe;
+        }
+
+        @Override
+        public Duration getTabCompletionCacheTtl() {
+            return ttl;
+        }
+
+        @Override
+        public boolean execute(CommandSender sender, String command, String... args) {
+            return true;
+        }
+
+        @Override
+        public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+            calls.incrementAndGet();
+            lastArgs = String.join(" ", args);
+            entered.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return List.of("alice", "bob");
+        }
+
+        @Override
+        public boolean isForPlayerOnly() {
+            return false;
+        }
+
+        @Override
+        public String usage() {
+            return "/" + name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
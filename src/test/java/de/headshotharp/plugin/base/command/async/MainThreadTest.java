@@ -0,0 +1,87 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.async;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class MainThreadTest {
+
+    private final Plugin plugin = Mockito.mock(Plugin.class);
+    private final Server server = Mockito.mock(Server.class);
+    private final BukkitScheduler scheduler = Mockito.mock(BukkitScheduler.class);
+
+    MainThreadTest() {
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(plugin.getName()).thenReturn("test");
+        Mockito.when(server.getScheduler()).thenReturn(scheduler);
+    }
+
+    @Test
+    void testTasksAreHandedToTheScheduler() throws Exception {
+        Mockito.when(plugin.isEnabled()).thenReturn(true);
+        MainThread mainThread = new MainThread(plugin);
+        CompletableFuture<String> future = mainThread.submit(() -> "done");
+        assertThat(future.isDone(), is(false));
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(scheduler).runTask(Mockito.eq(plugin), task.capture());
+        task.getValue().run();
+        assertThat(future.get(), is(equalTo("done")));
+        Mockito.when(server.isPrimaryThread()).thenReturn(true);
+        assertThat(mainThread.call(() -> "direct"), is(equalTo("direct")));
+    }
+
+    @Test
+    void testCallTimesOutAndCancelsTheTask() {
+        Mockito.when(plugin.isEnabled()).thenReturn(true);
+        MainThread mainThread = new MainThread(plugin);
+        assertThrows(CompletionException.class, () -> mainThread.call(() -> "late", Duration.ofMillis(20)));
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(scheduler).runTask(Mockito.eq(plugin), task.capture());
+        task.getValue().run();
+    }
+
+    @Test
+    void testTasksSubmittedWhileDisablingRunOnClose() throws Exception {
+        Mockito.when(plugin.isEnabled()).thenReturn(false);
+        MainThread mainThread = new MainThread(plugin);
+        CompletableFuture<String> future = mainThread.submit(() -> "reply");
+        assertThat(future.isDone(), is(false));
+        mainThread.close();
+        assertThat(future.get(), is(equalTo("reply")));
+        Mockito.verifyNoInteractions(scheduler);
+        CompletableFuture<String> late = mainThread.submit(() -> "late");
+        assertThrows(CancellationException.class, late::join);
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.completion;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+class PlayerNameIndexTest {
+
+    @Test
+    void testPrefixQueriesFollowJoinAndQuit() {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Server server = Mockito.mock(Server.class);
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        Player steve = player("Steve");
+        Mockito.doReturn(List.of(steve, player("alex"))).when(server).getOnlinePlayers();
+        PlayerNameIndex index = new PlayerNameIndex(plugin);
+        index.onPlayerJoin(join(player("Stefan")));
+        index.onPlayerJoin(join(player("Notch")));
+        assertThat(index.complete("st"), is(equalTo(List.of("Stefan", "Steve"))));
+        assertThat(index.complete("STE", 1), is(equalTo(List.of("Stefan"))));
+        assertThat(index.complete(""), is(equalTo(List.of("alex", "Notch", "Stefan", "Steve"))));
+        index.onPlayerQuit(quit(steve));
+        assertThat(index.complete("st"), is(equalTo(List.of("Stefan"))));
+        assertThat(index.complete("x"), is(equalTo(List.of())));
+    }
+
+    @Test
+    void testListenerIsRegisteredBeforeSnapshotAndRemovedOnClose() {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Server server = Mockito.mock(Server.class);
+        PluginManager pluginManager = Mockito.mock(PluginManager.class);
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(server.getPluginManager()).thenReturn(pluginManager);
+        Mockito.doReturn(List.of(player("Steve"))).when(server).getOnlinePlayers();
+        PlayerNameIndex index = new PlayerNameIndex(plugin);
+        InOrder order = Mockito.inOrder(pluginManager, server);
+        order.verify(pluginManager).registerEvents(index, plugin);
+        order.verify(server).getOnlinePlayers();
+        try (MockedStatic<HandlerList> handlers = Mockito.mockStatic(HandlerList.class)) {
+            index.close();
+            handlers.verify(() -> HandlerList.unregisterAll(index));
+        }
+        assertThat(index.size(), is(equalTo(0)));
+    }
+
+    private static PlayerJoinEvent join(Player player) {
+        PlayerJoinEvent event = Mockito.mock(PlayerJoinEvent.class);
+        Mockito.when(event.getPlayer()).thenReturn(player);
+        return event;
+    }
+
+    private static PlayerQuitEvent quit(Player player) {
+        PlayerQuitEvent event = Mockito.mock(PlayerQuitEvent.class);
+        Mockito.when(event.getPlayer()).thenReturn(player);
+        return event;
+    }
+
+    private static Player player(String name) {
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getName()).thenReturn(name);
+        return player;
+    }
+}
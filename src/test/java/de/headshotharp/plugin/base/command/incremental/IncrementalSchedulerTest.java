@@ -0,0 +1,77 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.incremental;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class IncrementalSchedulerTest {
+
+    @Test
+    void testJobsAreProcessedAcrossTicks() {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Server server = Mockito.mock(Server.class);
+        BukkitScheduler bukkitScheduler = Mockito.mock(BukkitScheduler.class);
+        BukkitTask task = Mockito.mock(BukkitTask.class);
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(server.getScheduler()).thenReturn(bukkitScheduler);
+        Mockito.when(bukkitScheduler.runTaskTimer(eq(plugin), any(Runnable.class), anyLong(), anyLong()))
+                .thenReturn(task);
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        // a zero budget processes a single unit per tick
+        IncrementalScheduler scheduler = new IncrementalScheduler(plugin, Duration.ZERO, 1, Duration.ofHours(1));
+        List<Integer> processed = new LinkedList<>();
+        IncrementalJob job = scheduler.submit(sender, "migration", List.of(1, 2, 3), processed::add);
+        IncrementalJob rejected = scheduler.submit(sender, "other", List.of(4), processed::add);
+        assertThat(rejected.getCompletion().isCancelled(), is(true));
+        ArgumentCaptor<Runnable> tick = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(bukkitScheduler).runTaskTimer(eq(plugin), tick.capture(), eq(1L), eq(1L));
+        tick.getValue().run();
+        assertThat(processed, is(equalTo(List.of(1))));
+        tick.getValue().run();
+        tick.getValue().run();
+        tick.getValue().run();
+        assertThat(processed, is(equalTo(List.of(1, 2, 3))));
+        assertThat(job.getCompletion().join(), is(equalTo(3L)));
+        Mockito.verify(task).cancel();
+        IncrementalJob cancelled = scheduler.submit(sender, "cancelled", List.of(5), processed::add);
+        cancelled.cancel();
+        tick.getValue().run();
+        assertThat(cancelled.getCompletion().isCancelled(), is(true));
+        assertThat(processed, is(equalTo(List.of(1, 2, 3))));
+    }
+}
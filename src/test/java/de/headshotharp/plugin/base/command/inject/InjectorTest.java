@@ -0,0 +1,95 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.inject;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.junit.jupiter.api.Test;
+
+class InjectorTest {
+
+    @Test
+    void testInjectBySupertype() throws IllegalAccessException, InvocationTargetException {
+        FileStorage storage = new FileStorage();
+        Injector injector = new Injector(storage, "server");
+        Consumer consumer = injector.create(Consumer.class);
+        assertThat(consumer.storage, is(sameInstance(storage)));
+        assertThat(consumer.injector, is(sameInstance(injector)));
+        assertThat(injector.getFactory(Consumer.class), is(sameInstance(injector.getFactory(Consumer.class))));
+    }
+
+    @Test
+    void testExplicitBindingResolvesAmbiguity() throws IllegalAccessException, InvocationTargetException {
+        Injector injector = new Injector(new FileStorage(), new FileStorage());
+        assertThrows(IllegalStateException.class, () -> injector.create(Consumer.class));
+        FileStorage preferred = new FileStorage();
+        injector.bind(Storage.class, preferred);
+        assertThat(injector.create(Consumer.class).storage, is(sameInstance(preferred)));
+    }
+
+    @Test
+    void testMissingParameterIsRejected() {
+        Injector injector = new Injector();
+        assertThrows(IllegalStateException.class, () -> injector.create(Consumer.class));
+    }
+
+    @Test
+    void testConstructorFailuresAreWrappedButErrorsAreNot() {
+        Injector injector = new Injector();
+        assertThrows(InvocationTargetException.class, () -> injector.create(FailingConstructor.class));
+        assertThrows(StackOverflowError.class, () -> injector.create(OverflowingConstructor.class));
+    }
+
+    interface Storage {
+    }
+
+    static class FileStorage implements Storage {
+    }
+
+    static class FailingConstructor {
+
+        FailingConstructor() {
+            throw new IllegalStateException("failing");
+        }
+    }
+
+    static class OverflowingConstructor {
+
+        OverflowingConstructor() {
+            throw new StackOverflowError();
+        }
+    }
+
+    static class Consumer {
+
+        final Storage storage;
+        final Injector injector;
+
+        Consumer(Storage storage, Injector injector) {
+            this.storage = storage;
+            this.injector = injector;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.permission;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class PermissionCacheTest {
+
+    @Test
+    void testResultsAreCachedUntilCommandsAreResent() {
+        PermissionCache cache = new PermissionCache(plugin(), Duration.ofHours(1));
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        Mockito.when(player.hasPermission("shop.buy")).thenReturn(true, false);
+        assertThat(cache.hasPermission(player, "shop.buy"), is(true));
+        assertThat(cache.hasPermission(player, "shop.buy"), is(true));
+        assertThat(cache.hasPermission(player, null), is(true));
+        Mockito.verify(player, Mockito.times(1)).hasPermission("shop.buy");
+        PlayerCommandSendEvent event = Mockito.mock(PlayerCommandSendEvent.class);
+        Mockito.when(event.getPlayer()).thenReturn(player);
+        cache.onPlayerCommandSend(event);
+        assertThat(cache.size(), is(0));
+        assertThat(cache.hasPermission(player, "shop.buy"), is(false));
+    }
+
+    @Test
+    void testConsoleIsNotCached() {
+        PermissionCache cache = new PermissionCache(plugin(), Duration.ofHours(1));
+        CommandSender console = Mockito.mock(CommandSender.class);
+        Mockito.when(console.hasPermission("shop.buy")).thenReturn(true);
+        assertThat(cache.hasPermission(console, "shop.buy"), is(true));
+        assertThat(cache.hasPermission(console, "shop.buy"), is(true));
+        Mockito.verify(console, Mockito.times(2)).hasPermission("shop.buy");
+        assertThat(cache.size(), is(0));
+    }
+
+    private static Plugin plugin() {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Server server = Mockito.mock(Server.class);
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        return plugin;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.processor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.headshotharp.plugin.base.command.CommandIndex;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+class CommandIndexProcessorTest {
+
+    private static final String BASE = """
+            package test;
+
+            import java.util.List;
+            import org.bukkit.command.CommandSender;
+            import org.bukkit.plugin.java.JavaPlugin;
+            import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+
+            public abstract class Base extends ExecutableCommand<JavaPlugin> {
+                protected Base() { super(null); }
+                public boolean execute(CommandSender sender, String command, String... args) { return true; }
+                public List<String> onTabComplete(CommandSender sender, String command, String... args) { return null; }
+                public boolean isForPlayerOnly() { return false; }
+                public String usage() { return ""; }
+                public String getName() { return "base"; }
+            }
+            """;
+
+    private static final String COMMANDS = """
+            package test;
+
+            public class Commands extends Base {
+                public static class Nested extends Base {
+                }
+                public class Inner extends Base {
+                }
+                public abstract static class AbstractNested extends Base {
+                }
+            }
+            """;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void testConcreteAndNestedStaticCommandsAreIndexed() throws Exception {
+        Path output = compile("Base", BASE, "Commands", COMMANDS, "NoCommand", "package test; class NoCommand {}");
+        assertThat(Files.readAllLines(output.resolve(CommandIndex.INDEX_RESOURCE)),
+                is(equalTo(List.of("test.Commands", "test.Commands$Nested"))));
+    }
+
+    @Test
+    void testExistingIndexIsMergedWithoutRemovedClasses() throws Exception {
+        Path index = folder.resolve("classes").resolve(CommandIndex.INDEX_RESOURCE);
+        Files.createDirectories(index.getParent());
+        // an incremental build only recompiles changed classes
+        Files.writeString(index, ExecutableCommand.class.getName() + "\ntest.Removed\n");
+        compile("Base", BASE, "Commands", COMMANDS);
+        assertThat(Files.readAllLines(index), is(equalTo(List.of(ExecutableCommand.class.getName(),
+                "test.Commands", "test.Commands$Nested"))));
+    }
+
+    @Test
+    void testNoIndexIsWrittenWithoutCommands() throws Exception {
+        Path output = compile("NoCommand", "package test; class NoCommand {}");
+        assertThat(Files.exists(output.resolve(CommandIndex.INDEX_RESOURCE)), is(false));
+    }
+
+    private Path compile(String... namesAndSources) throws IOException, URISyntaxException {
+        Path sources = Files.createDirectories(folder.resolve("src").resolve("test"));
+        Path output = Files.createDirectories(folder.resolve("classes"));
+        for (int i = 0; i < namesAndSources.length; i += 2) {
+            Files.writeString(sources.resolve(namesAndSources[i] + ".java"), namesAndSources[i + 1]);
+        }
+        String classpath = location(ExecutableCommand.class) + File.pathSeparator + location(JavaPlugin.class);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null)) {
+            Iterable<? extends JavaFileObject> units = files.getJavaFileObjects(sources.toFile().listFiles());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, null,
+                    List.of("-proc:only", "-classpath", classpath, "-d", output.toString()), null, units);
+            task.setProcessors(List.of(new CommandIndexProcessor()));
+            assertThat(task.call(), is(true));
+        }
+        return output;
+    }
+
+    private static String location(Class<?> type) throws URISyntaxException {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+}
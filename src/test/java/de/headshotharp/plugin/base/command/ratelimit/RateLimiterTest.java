@@ -0,0 +1,58 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.ratelimit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testTokenBucketAllowsBurstAndRefills() {
+        RateLimiter limiter = new RateLimiter(RateLimit.tokenBucket(3, Duration.ofSeconds(1)));
+        long now = System.nanoTime();
+        assertThat(limiter.tryAcquire("player", now), is(equalTo(0L)));
+        assertThat(limiter.tryAcquire("player", now), is(equalTo(0L)));
+        assertThat(limiter.tryAcquire("player", now), is(equalTo(0L)));
+        assertThat(limiter.tryAcquire("player", now), is(equalTo(SECOND)));
+        assertThat(limiter.tryAcquire("other", now), is(equalTo(0L)));
+        assertThat(limiter.tryAcquire("player", now + SECOND), is(equalTo(0L)));
+        assertThat(limiter.tryAcquire("player", now + SECOND), is(equalTo(SECOND)));
+    }
+
+    @Test
+    void testIdleKeysAreSwept() {
+        RateLimiter limiter = new RateLimiter(RateLimit.cooldown(Duration.ofSeconds(1)));
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("player" + i, now);
+        }
+        assertThat(limiter.size(), is(equalTo(100)));
+        limiter.tryAcquire("late", now + 60 * SECOND);
+        assertThat(limiter.size(), is(equalTo(1)));
+    }
+}
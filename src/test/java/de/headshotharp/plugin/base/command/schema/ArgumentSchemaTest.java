@@ -0,0 +1,110 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.schema;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import de.headshotharp.plugin.base.command.generic.Arguments;
+
+class ArgumentSchemaTest {
+
+    enum Mode {
+        SURVIVAL, CREATIVE, SPECTATOR
+    }
+
+    private static final Parameter<Mode> MODE = Parameter.required("mode", ArgumentTypes.enumeration(Mode.class));
+    private static final Parameter<Integer> AMOUNT = Parameter.optional("amount", ArgumentTypes.integer(1, 64), 1);
+    private static final Parameter<String> REASON = Parameter.optional("reason", ArgumentTypes.greedyString(), "");
+
+    private final ArgumentSchema schema = ArgumentSchema.of(MODE, AMOUNT, REASON);
+    private final CommandSender sender = Mockito.mock(CommandSender.class);
+
+    @Test
+    void testArgumentsAreParsed() throws ArgumentParseException {
+        ParsedArguments args = schema.parse(sender, Arguments.of("creative", "5", "for", "testing"));
+        assertThat(args.get(MODE), is(Mode.CREATIVE));
+        assertThat(args.get(AMOUNT), is(equalTo(5)));
+        assertThat(args.get(REASON), is(equalTo("for testing")));
+        ParsedArguments defaults = schema.parse(sender, Arguments.of("SURVIVAL"));
+        assertThat(defaults.get(AMOUNT), is(equalTo(1)));
+        assertThat(schema.getUsage(), is(equalTo("<mode> [amount] [reason]")));
+    }
+
+    @Test
+    void testInvalidArgumentsAreReported() {
+        ArgumentParseException missing = assertThrows(ArgumentParseException.class,
+                () -> schema.parse(sender, Arguments.of()));
+        assertThat(missing.getMessage(), is(equalTo("Missing argument <mode>")));
+        ArgumentParseException range = assertThrows(ArgumentParseException.class,
+                () -> schema.parse(sender, Arguments.of("creative", "65")));
+        assertThat(range.getMessage(), is(equalTo("'65' is not a number between 1 and 64")));
+        assertThrows(IllegalArgumentException.class, () -> ArgumentSchema.of(AMOUNT, MODE));
+        assertThrows(IllegalArgumentException.class, () -> ArgumentSchema.of(REASON, AMOUNT));
+    }
+
+    @Test
+    void testSchemaCommandReportsErrorsWithoutUsage() {
+        SchemaCommand<JavaPlugin> command = new GameModeCommand(schema);
+        assertThat(command.execute(sender, "gamemode", "creative", "65"), is(true));
+        Mockito.verify(sender, Mockito.only()).sendMessage(ChatColor.RED + "'65' is not a number between 1 and 64");
+        assertThat(command.usage(), is(equalTo("/gamemode <mode> [amount] [reason]")));
+        assertThat(new GameModeCommand(ArgumentSchema.of()).usage(), is(equalTo("/gamemode")));
+    }
+
+    @Test
+    void testCompletionUsesTheSchema() {
+        assertThat(schema.complete(sender, Arguments.of("")), is(equalTo(List.of("creative", "spectator", "survival"))));
+        assertThat(schema.complete(sender, Arguments.of("S")), is(equalTo(List.of("spectator", "survival"))));
+        assertThat(schema.complete(sender, Arguments.of("creative", "")), is(equalTo(List.of())));
+    }
+
+    static class GameModeCommand extends SchemaCommand<JavaPlugin> {
+
+        GameModeCommand(ArgumentSchema schema) {
+            super(null, schema);
+        }
+
+        @Override
+        public boolean execute(CommandSender sender, String command, ParsedArguments args) {
+            return true;
+        }
+
+        @Override
+        public boolean isForPlayerOnly() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return "gamemode";
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.testplugin.lazy.mismatch;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.bukkit.command.CommandSender;
+
+import de.headshotharp.plugin.base.command.generic.CommandInfo;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+
+@CommandInfo(name = "mismatch", aliases = "mm", asyncTabCompletion = true, tabCompletionCacheTtlMillis = 1000)
+public class MismatchingLazyCommand extends ExecutableCommand<TestPluginImpl> {
+
+    public MismatchingLazyCommand(TestPluginImpl plugin) {
+        super(plugin);
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String command, String... args) {
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+        return List.of();
+    }
+
+    @Override
+    public boolean isForPlayerOnly() {
+        return true;
+    }
+
+    @Override
+    public String usage() {
+        return "/mismatch";
+    }
+
+    @Override
+    public String getName() {
+        return "mismatch";
+    }
+
+    @Override
+    public String getPermission() {
+        return "test.mismatch";
+    }
+
+    @Override
+    public boolean isTabCompletionAsyncSafe() {
+        return true;
+    }
+
+    @Override
+    public Duration getTabCompletionCacheTtl() {
+        return Duration.ofSeconds(1);
+    }
+}
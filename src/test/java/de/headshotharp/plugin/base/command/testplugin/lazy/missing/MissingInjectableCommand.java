@@ -0,0 +1,62 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.command.testplugin.lazy.missing;
+
+import java.util.List;
+
+import org.bukkit.command.CommandSender;
+
+import de.headshotharp.plugin.base.command.generic.CommandInfo;
+import de.headshotharp.plugin.base.command.generic.ExecutableCommand;
+import de.headshotharp.plugin.base.command.testplugin.TestDataSource;
+import de.headshotharp.plugin.base.command.testplugin.TestPluginImpl;
+
+@CommandInfo(name = "missing")
+public class MissingInjectableCommand extends ExecutableCommand<TestPluginImpl> {
+
+    public MissingInjectableCommand(TestPluginImpl plugin, TestDataSource dataSource) {
+        super(plugin);
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String command, String... args) {
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String command, String... args) {
+        return List.of();
+    }
+
+    @Override
+    public boolean isForPlayerOnly() {
+        return false;
+    }
+
+    @Override
+    public String usage() {
+        return "/missing";
+    }
+
+    @Override
+    public String getName() {
+        return "missing";
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConfigServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSnapshotIsServedWithoutReading() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        TestConfig config = new TestConfig("MC", 20);
+        service.saveConfig(config);
+        Files.delete(file.toPath());
+        assertThat(service.getConfig().getName(), is(equalTo("MC")));
+    }
+
+    @Test
+    void testSnapshotCannotBeModifiedByCallers() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        service.addChangeListener((oldConfig, newConfig) -> newConfig.setName("listener"));
+        TestConfig config = new TestConfig("MC", 20);
+        service.saveConfig(config);
+        config.setName("saved");
+        service.getConfig().setName("get");
+        service.readConfig().setMaxPlayers(0);
+        TestConfig async = new TestConfig("Survival", 50);
+        service.saveConfigAsync(async);
+        async.setName("async");
+        service.getConfig().setName("get");
+        assertThat(service.getConfig().getName(), is(equalTo("Survival")));
+        service.flush();
+        assertThat(service.readConfig().getMaxPlayers(), is(equalTo(50)));
+        assertThat(Files.readString(file.toPath()).contains("Survival"), is(true));
+    }
+
+    @Test
+    void testChangeListenerReceivesReloadedConfig() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        Files.writeString(file.toPath(), "name: MC\nmaxPlayers: 20\n");
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        List<String> changes = new LinkedList<>();
+        service.addChangeListener((oldConfig, newConfig) -> changes
+                .add((oldConfig == null ? null : oldConfig.getName()) + " -> " + newConfig.getName()));
+        assertThat(service.getConfig().getMaxPlayers(), is(equalTo(20)));
+        Files.writeString(file.toPath(), "name: Survival\nmaxPlayers: 50\n");
+        assertThat(service.readConfig().getName(), is(equalTo("Survival")));
+        assertThat(changes, is(equalTo(List.of("null -> MC", "MC -> Survival"))));
+    }
+
+    @Test
+    void testReadConfigOnlyReadsChangedFiles() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        Files.writeString(file.toPath(), "name: MC\nmaxPlayers: 20\n");
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        List<String> reads = new LinkedList<>();
+        service.addChangeListener((oldConfig, newConfig) -> reads.add(newConfig.getName()));
+        TestConfig config = service.readConfig();
+        assertThat(service.readConfig(), is(not(sameInstance(config))));
+        assertThat(reads, is(equalTo(List.of("MC"))));
+        Files.writeString(file.toPath(), "name: Survival\nmaxPlayers: 50\n");
+        assertThat(service.readConfig().getName(), is(equalTo("Survival")));
+        service.reload();
+        assertThat(reads, is(equalTo(List.of("MC", "Survival", "Survival"))));
+    }
+
+    @Test
+    void testWatchedFileIsReloaded() throws IOException, InterruptedException {
+        File file = tempDir.resolve("config.yml").toFile();
+        Files.writeString(file.toPath(), "name: MC\nmaxPlayers: 20\n");
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        BlockingQueue<String> reloads = new LinkedBlockingQueue<>();
+        service.addChangeListener((oldConfig, newConfig) -> reloads.add(newConfig.getName()));
+        service.watch();
+        try {
+            assertThat(service.getConfig().getName(), is(equalTo("MC")));
+            assertThat(reloads.take(), is(equalTo("MC")));
+            Files.writeString(file.toPath(), "name: Survival\nmaxPlayers: 50\n");
+            assertThat(reloads.poll(10, TimeUnit.SECONDS), is(equalTo("Survival")));
+            assertThat(service.readConfig().getMaxPlayers(), is(equalTo(50)));
+        } finally {
+            service.close();
+        }
+        Files.writeString(file.toPath(), "name: Creative\nmaxPlayers: 5\n");
+        assertThat(reloads.poll(500, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    void testSnapshotIsEmptyBeforeFirstRead() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        Files.writeString(file.toPath(), "name: MC\n");
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        List<TestConfig> changes = new LinkedList<>();
+        service.addChangeListener((oldConfig, newConfig) -> changes.add(oldConfig));
+        service.getConfig();
+        service.getConfig();
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0), is(nullValue()));
+    }
+
+    @Test
+    void testAsyncSavesAreCoalesced() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        service.setWriteBehindDelay(Duration.ofMinutes(1));
+        CompletableFuture<Void> first = service.saveConfigAsync(new TestConfig("MC", 20));
+        CompletableFuture<Void> second = service.saveConfigAsync(new TestConfig("Survival", 50));
+        assertThat(second, is(sameInstance(first)));
+        assertThat(file.exists(), is(false));
+        assertThat(service.getConfig().getName(), is(equalTo("Survival")));
+        service.flush();
+        assertThat(first.isDone(), is(true));
+        assertThat(Files.readString(file.toPath()).contains("Survival"), is(true));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.count(), is(equalTo(1L)));
+        }
+    }
+
+    @Test
+    void testCloseWritesPendingSavesAndStopsTheWriter() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        service.setWriteBehindDelay(Duration.ofMinutes(1));
+        CompletableFuture<Void> pending = service.saveConfigAsync(new TestConfig("MC", 20));
+        assertThat(writerThreads(), is(equalTo(1L)));
+        service.close();
+        assertThat(pending.isDone(), is(true));
+        assertThat(Files.readString(file.toPath()).contains("MC"), is(true));
+        assertThat(service.saveConfigAsync(new TestConfig("Survival", 50)).isDone(), is(true));
+        assertThat(Files.readString(file.toPath()).contains("Survival"), is(true));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writerThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertThat(writerThreads(), is(equalTo(0L)));
+    }
+
+    @Test
+    @EnabledOnOs({ OS.LINUX, OS.MAC })
+    void testSavesKeepFilePermissions() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        service.saveConfig(new TestConfig("MC", 20));
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+        service.saveConfig(new TestConfig("Survival", 50));
+        assertThat(Files.getPosixFilePermissions(file.toPath()), is(equalTo(permissions)));
+    }
+
+    @Test
+    void testBinarySnapshotIsRebuiltAfterEdit() throws IOException {
+        File file = tempDir.resolve("config.yml").toFile();
+        Files.writeString(file.toPath(), "name: MC\nmaxPlayers: 20\n");
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        service.setBinarySnapshot(true);
+        assertThat(service.readConfig().getName(), is(equalTo("MC")));
+        Path snapshot = tempDir.resolve("config.yml.smile");
+        assertThat(Files.exists(snapshot), is(true));
+        assertThat(service.readConfig().getMaxPlayers(), is(equalTo(20)));
+        Files.writeString(file.toPath(), "name: Survival\nmaxPlayers: 50\n");
+        assertThat(service.readConfig().getName(), is(equalTo("Survival")));
+        ConfigService<TestConfig> restarted = new ConfigService<>(TestConfig.class, file);
+        restarted.setBinarySnapshot(true);
+        assertThat(restarted.readConfig().getMaxPlayers(), is(equalTo(50)));
+    }
+
+    @Test
+    void testSectionsAreStreamed() throws Exception {
+        File file = tempDir.resolve("config.yml").toFile();
+        Files.writeString(file.toPath(),
+                "name: MC\nshops:\n  owner: Steve\n  items:\n  - name: a\n    maxPlayers: 1\n  - name: b\n    maxPlayers: 2\n");
+        ConfigService<TestConfig> service = new ConfigService<>(TestConfig.class, file);
+        assertThat(service.readSection("shops.owner", String.class), is(equalTo("Steve")));
+        assertThat(service.readSection("shops.missing", String.class), is(nullValue()));
+        List<String> names = new LinkedList<>();
+        try (SectionIterator<TestConfig> items = service.iterateSection("shops.items", TestConfig.class)) {
+            items.forEachRemaining(item -> names.add(item.getName()));
+        }
+        assertThat(names, is(equalTo(List.of("a", "b"))));
+        service.writeSection("shops.items", List.of(new TestConfig("c", 3)).iterator());
+        service.writeSection("other.items", List.of("x").iterator());
+        assertThat(service.readSection("shops.items", TestConfig[].class)[0].getMaxPlayers(), is(equalTo(3)));
+        assertThat(service.readSection("shops.owner", String.class), is(equalTo("Steve")));
+        assertThat(service.readSection("other.items", String[].class), is(equalTo(new String[] { "x" })));
+        assertThat(service.readSection("name", String.class), is(equalTo("MC")));
+    }
+
+    private static long writerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("ConfigService-writer-config.yml")).count();
+    }
+
+    public static class TestConfig {
+
+        private String name;
+        private int maxPlayers;
+
+        public TestConfig() {
+        }
+
+        public TestConfig(String name, int maxPlayers) {
+            this.name = name;
+            this.maxPlayers = maxPlayers;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getMaxPlayers() {
+            return maxPlayers;
+        }
+
+        public void setMaxPlayers(int maxPlayers) {
+            this.maxPlayers = maxPlayers;
+        }
+    }
+}
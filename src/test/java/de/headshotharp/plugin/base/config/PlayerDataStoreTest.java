@@ -0,0 +1,201 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.config;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class PlayerDataStoreTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void testDirtyDataIsWrittenToShardedFiles() throws Exception {
+        Plugin plugin = plugin();
+        UUID uuid = UUID.fromString("3f8a1c2e-0000-4000-8000-000000000001");
+        PlayerDataStore<Stats> store = new PlayerDataStore<>(plugin, "players", Stats.class, Stats::new, 10,
+                Duration.ofHours(1));
+        store.update(uuid, stats -> stats.kills = 3);
+        store.update(uuid, stats -> stats.kills++);
+        Path file = folder.resolve("players").resolve("3f").resolve(uuid + ".yml");
+        assertThat(store.getFile(uuid), is(equalTo(file)));
+        assertThat(Files.exists(file), is(false));
+        store.flush().join();
+        assertThat(Files.exists(file), is(true));
+        store.update(uuid, stats -> stats.kills = 5);
+        store.close();
+        PlayerDataStore<Stats> reopened = new PlayerDataStore<>(plugin, "players", Stats.class, Stats::new);
+        assertThat(reopened.get(uuid).kills, is(equalTo(5)));
+        reopened.close();
+    }
+
+    @Test
+    void testDataModifiedAfterCloseIsWritten() throws Exception {
+        Plugin plugin = plugin();
+        UUID uuid = UUID.randomUUID();
+        UUID replaced = UUID.randomUUID();
+        PlayerDataStore<Stats> store = new PlayerDataStore<>(plugin, "players", Stats.class, Stats::new, 10,
+                Duration.ofHours(1));
+        store.update(uuid, stats -> stats.kills = 1);
+        // onDisable of a plugin closing the store before saving online players
+        store.close();
+        store.update(uuid, stats -> stats.kills = 7);
+        Stats stats = new Stats();
+        stats.kills = 9;
+        store.put(replaced, stats);
+        assertThat(Files.readString(store.getFile(uuid)).contains("kills: 7"), is(true));
+        assertThat(Files.readString(store.getFile(replaced)).contains("kills: 9"), is(true));
+        assertThat(store.flush().isDone(), is(true));
+        assertThat(store.preload(UUID.randomUUID()).join().kills, is(equalTo(0)));
+    }
+
+    @Test
+    void testOnlyCleanOfflinePlayersAreEvicted() throws Exception {
+        Plugin plugin = plugin();
+        PlayerDataStore<Stats> store = new PlayerDataStore<>(plugin, "players", Stats.class, Stats::new, 1,
+                Duration.ofHours(1));
+        UUID online = UUID.randomUUID();
+        AsyncPlayerPreLoginEvent preLogin = Mockito.mock(AsyncPlayerPreLoginEvent.class);
+        Mockito.when(preLogin.getUniqueId()).thenReturn(online);
+        Mockito.when(preLogin.getLoginResult()).thenReturn(AsyncPlayerPreLoginEvent.Result.ALLOWED);
+        store.onAsyncPlayerPreLogin(preLogin);
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(online);
+        PlayerJoinEvent join = Mockito.mock(PlayerJoinEvent.class);
+        Mockito.when(join.getPlayer()).thenReturn(player);
+        store.onPlayerJoin(join);
+        UUID offline = UUID.randomUUID();
+        store.update(offline, stats -> stats.kills = 1);
+        UUID other = UUID.randomUUID();
+        store.get(other);
+        assertThat(store.size(), is(equalTo(2)));
+        assertThat(store.getIfCached(other), is(nullValue()));
+        store.flush().join();
+        assertThat(store.size(), is(equalTo(1)));
+        assertThat(store.getIfCached(online).kills, is(equalTo(0)));
+        store.close();
+    }
+
+    @Test
+    void testPreloadedPlayersAreKeptUntilLoginIsDenied() throws Exception {
+        Plugin plugin = plugin();
+        PlayerDataStore<Stats> store = new PlayerDataStore<>(plugin, "players", Stats.class, Stats::new, 1,
+                Duration.ofHours(1));
+        UUID joining = UUID.randomUUID();
+        AsyncPlayerPreLoginEvent preLogin = Mockito.mock(AsyncPlayerPreLoginEvent.class);
+        Mockito.when(preLogin.getUniqueId()).thenReturn(joining);
+        Mockito.when(preLogin.getLoginResult()).thenReturn(AsyncPlayerPreLoginEvent.Result.ALLOWED);
+        store.onAsyncPlayerPreLogin(preLogin);
+        UUID other = UUID.randomUUID();
+        store.get(other);
+        assertThat(store.size(), is(equalTo(1)));
+        assertThat(store.getIfCached(joining), is(not(nullValue())));
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(joining);
+        PlayerLoginEvent login = Mockito.mock(PlayerLoginEvent.class);
+        Mockito.when(login.getPlayer()).thenReturn(player);
+        Mockito.when(login.getResult()).thenReturn(PlayerLoginEvent.Result.KICK_WHITELIST);
+        store.onPlayerLogin(login);
+        store.get(other);
+        assertThat(store.getIfCached(joining), is(nullValue()));
+        store.close();
+    }
+
+    @Test
+    void testPutWaitsForRunningUpdates() throws Exception {
+        Plugin plugin = plugin();
+        PlayerDataStore<Stats> store = new PlayerDataStore<>(plugin, "players", Stats.class, Stats::new, 10,
+                Duration.ofHours(1));
+        UUID uuid = UUID.randomUUID();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> update = CompletableFuture.runAsync(() -> {
+            try {
+                store.update(uuid, stats -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    stats.kills = 1;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS), is(true));
+        Stats replacement = new Stats();
+        replacement.kills = 9;
+        Thread put = new Thread(() -> store.put(uuid, replacement));
+        put.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (put.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(put.getState(), is(Thread.State.BLOCKED));
+        release.countDown();
+        update.join();
+        put.join();
+        assertThat(store.getIfCached(uuid), is(sameInstance(replacement)));
+        store.close();
+        assertThat(Files.readString(store.getFile(uuid)).contains("kills: 9"), is(true));
+    }
+
+    private Plugin plugin() {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Server server = Mockito.mock(Server.class);
+        Mockito.when(plugin.getName()).thenReturn("test");
+        Mockito.when(plugin.getDataFolder()).thenReturn(folder.toFile());
+        Mockito.when(plugin.getServer()).thenReturn(server);
+        Mockito.when(plugin.getLogger()).thenReturn(Logger.getLogger(PlayerDataStoreTest.class.getName()));
+        Mockito.when(server.getPluginManager()).thenReturn(Mockito.mock(PluginManager.class));
+        return plugin;
+    }
+
+    public static class Stats {
+        public int kills;
+    }
+}
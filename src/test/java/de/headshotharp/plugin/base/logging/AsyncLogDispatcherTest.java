@@ -0,0 +1,74 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.logging;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+class AsyncLogDispatcherTest {
+
+    @Test
+    void testFormatReplacesPlaceholders() {
+        IllegalStateException exception = new IllegalStateException();
+        assertThat(LogFormat.format("{} joined {}", "Steve", "world"), is(equalTo("Steve joined world")));
+        assertThat(LogFormat.format("{} and {}", "one"), is(equalTo("one and {}")));
+        assertThat(LogFormat.throwable("x", exception), is(exception));
+        assertThat(LogFormat.throwable("x"), is(nullValue()));
+    }
+
+    @Test
+    void testBufferedRecordsArePublishedOnClose() {
+        Logger logger = Logger.getLogger("AsyncLogDispatcherTest");
+        logger.setUseParentHandlers(false);
+        List<String> messages = new CopyOnWriteArrayList<>();
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(logger, 16, OverflowPolicy.CALLER_RUNS);
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(new LogRecord(Level.INFO, "message " + i));
+        }
+        dispatcher.close();
+        assertThat(messages.size(), is(equalTo(100)));
+        assertThat(messages.contains("message 99"), is(true));
+    }
+}
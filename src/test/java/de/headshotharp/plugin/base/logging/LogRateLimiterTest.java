@@ -0,0 +1,53 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.logging;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.junit.jupiter.api.Test;
+
+class LogRateLimiterTest {
+
+    @Test
+    void testRepeatedMessagesAreCollapsed() throws InterruptedException {
+        List<String> summaries = new LinkedList<>();
+        LogRateLimiter limiter = new LogRateLimiter(Duration.ofMillis(50), (level, msg) -> summaries.add(msg));
+        assertThat(limiter.acquire("failed {}"), is(equalTo(0L)));
+        limiter.logged("failed {}", Level.WARNING, "failed a");
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.acquire("failed {}"), is(equalTo(LogRateLimiter.SUPPRESSED)));
+        }
+        assertThat(limiter.acquire("other"), is(equalTo(0L)));
+        assertThat(limiter.acquireTrace(new IllegalStateException()), is(true));
+        assertThat(limiter.acquireTrace(new IllegalStateException()), is(false));
+        Thread.sleep(60);
+        limiter.flush();
+        assertThat(summaries, is(equalTo(List.of("failed a (repeated 10 more times)"))));
+        assertThat(limiter.acquire("failed {}"), is(equalTo(0L)));
+        assertThat(limiter.acquireTrace(new IllegalStateException()), is(true));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Minecraft Plugin Base
+ * Copyright © 2022 headshotharp.de
+ *
+ * This file is part of Minecraft Plugin Base.
+ *
+ * Minecraft Plugin Base is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Minecraft Plugin Base is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Minecraft Plugin Base. If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.headshotharp.plugin.base.profiling;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class StartupProfilerTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void testNestedPhasesAreReported() throws Exception {
+        Plugin plugin = plugin(Logger.getLogger(StartupProfilerTest.class.getName()));
+        for (int run = 0; run < 2; run++) {
+            StartupProfiler profiler = StartupProfiler.start(plugin);
+            try (StartupProfiler.Phase outer = StartupProfiler.phase("outer")) {
+                try (StartupProfiler.Phase inner = StartupProfiler.phase("inner")) {
+                    assertThat(StartupProfiler.isActive(), is(true));
+                }
+            }
+            PhaseStats total = profiler.finish();
+            assertThat(StartupProfiler.isActive(), is(false));
+            assertThat(profiler.getPhases().stream().map(PhaseStats::getName).toList(),
+                    is(equalTo(List.of("outer", "inner"))));
+            assertThat(profiler.getPhases().get(1).getDepth(), is(equalTo(1)));
+            assertThat(total.getWallNanos() >= profiler.getPhases().get(0).getWallNanos(), is(true));
+        }
+        JsonNode report = new ObjectMapper().readTree(new File(folder.toFile(), StartupProfiler.REPORT_FILE));
+        assertThat(report.path("plugin").asText(), is(equalTo("test")));
+        assertThat(report.path("phases").get(1).path("name").asText(), is(equalTo("inner")));
+        assertThat(report.path("phases").get(1).has("previousWallMillis"), is(true));
+        assertThat(report.has("previousWallMillis"), is(true));
+    }
+
+    @Test
+    void testFailedEnableDoesNotLeaveProfilerActive() {
+        Plugin plugin = plugin(Logger.getLogger(StartupProfilerTest.class.getName()));
+        assertThrows(IllegalStateException.class, () -> {
+            try (StartupProfiler profiler = StartupProfiler.start(plugin)) {
+                throw new IllegalStateException("enable failed");
+            }
+        });
+        assertThat(StartupProfiler.isActive(), is(false));
+        // without try-with-resources the next plugin replaces the stale profiler
+        StartupProfiler stale = StartupProfiler.start(plugin);
+        StartupProfiler profiler = StartupProfiler.start(plugin);
+        try (StartupProfiler.Phase phase = StartupProfiler.phase("next")) {
+            assertThat(StartupProfiler.isActive(), is(true));
+        }
+        assertThat(stale.getPhases().size(), is(equalTo(0)));
+        assertThat(profiler.getPhases().size(), is(equalTo(1)));
+        profiler.close();
+        assertThat(StartupProfiler.isActive(), is(false));
+    }
+
+    @Test
+    void testRepeatedPhasesAreComparedByTheirSum() throws Exception {
+        Files.writeString(folder.resolve(StartupProfiler.REPORT_FILE), "{\"version\": \"1.0\", \"phases\": ["
+                + "{\"name\": \"repeated\", \"wallMillis\": 1}, {\"name\": \"repeated\", \"wallMillis\": 1}]}");
+        Logger logger = Logger.getLogger(StartupProfilerTest.class.getName() + ".regression");
+        List<String> warnings = new ArrayList<>();
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord logRecord) {
+                if (logRecord.getLevel() == Level.WARNING) {
+                    warnings.add(logRecord.getMessage());
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        try (StartupProfiler profiler = StartupProfiler.start(plugin(logger))) {
+            for (int i = 0; i < 2; i++) {
+                try (StartupProfiler.Phase phase = StartupProfiler.phase("repeated")) {
+                    Thread.sleep(10);
+                }
+            }
+            profiler.finish();
+        }
+        assertThat(warnings.size(), is(equalTo(1)));
+        assertThat(warnings.get(0).contains("than 2.0 ms in version 1.0"), is(true));
+    }
+
+    @Test
+    void testPhasesWithoutProfilerAreIgnored() {
+        try (StartupProfiler.Phase phase = StartupProfiler.phase("ignored")) {
+            assertThat(StartupProfiler.isActive(), is(false));
+        }
+    }
+
+    private Plugin plugin(Logger logger) {
+        Plugin plugin = Mockito.mock(Plugin.class);
+        Mockito.when(plugin.getName()).thenReturn("test");
+        Mockito.when(plugin.getDataFolder()).thenReturn(folder.toFile());
+        Mockito.when(plugin.getLogger()).thenReturn(logger);
+        return plugin;
+    }
+}